@@ -1,8 +1,17 @@
 import axiosClient from "./axiosClient";
 
-// 1. Get All Users
-export const getAllUsers = async () => {
-    const response = await axiosClient.get('/users/admin/all');
+// 1. Get Users, one keyset page at a time: pass nextCursor back as afterId for the next page
+// q: name / email / phone fragment, matched on the server (accent-insensitive)
+export const getAdminUsers = async (params: { role?: string; q?: string; afterId?: number | null; size?: number } = {}) => {
+    const response = await axiosClient.get('/users/admin/users', {
+        params: { role: params.role, q: params.q || undefined, afterId: params.afterId ?? undefined, size: params.size },
+    });
+    return response.data; // { items, nextCursor }
+};
+
+// Number of users per role name, e.g. { ADMIN: 1, TEACHER: 12, STUDENT: 340 }
+export const getAdminUserCounts = async () => {
+    const response = await axiosClient.get('/users/admin/users/counts');
     return response.data;
 };
 
@@ -1,5 +1,5 @@
-import React, { useEffect, useState } from 'react';
-import { View, Text, TextInput, ScrollView, RefreshControl, Alert } from 'react-native';
+import React, { useEffect, useRef, useState } from 'react';
+import { View, Text, TextInput, ScrollView, RefreshControl, Alert, TouchableOpacity } from 'react-native';
 import { SafeAreaView } from 'react-native-safe-area-context';
 import colors from '../../theme';
 import AsyncStorage from '@react-native-async-storage/async-storage';
@@ -12,19 +12,27 @@ import UserListTab from './components/UserListTab';
 import StatsModal from './components/StatsModal';
 
 // API
-import { getAllUsers, toggleUserLock, getUserStats } from '@/api/adminService';
+import { getAdminUsers, getAdminUserCounts, toggleUserLock, getUserStats } from '@/api/adminService';
 import AdminHeader from './components/AdminHeader';
 
+const PAGE_SIZE = 50;
+const SEARCH_DEBOUNCE_MS = 300;
+
 const AdminDashboard = () => {
     // Data State
-    const [allUsers, setAllUsers] = useState<any[]>([]); // Toàn bộ user
-    const [filteredUsers, setFilteredUsers] = useState<any[]>([]); // List đang hiển thị theo Tab & Search
+    const [allUsers, setAllUsers] = useState<any[]>([]); // Các trang đã tải của tab + từ khóa hiện tại
+    const [nextCursor, setNextCursor] = useState<number | null>(null);
+    const [roleCounts, setRoleCounts] = useState<Record<string, number>>({});
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [refreshing, setRefreshing] = useState(false);
 
     // UI State
     const [activeTab, setActiveTab] = useState<"ADMIN" | "TEACHER" | "STUDENT">("TEACHER");
     const [searchText, setSearchText] = useState("");
+    const [debouncedSearch, setDebouncedSearch] = useState("");
+    // Chỉ request mới nhất được ghi vào list (kết quả tìm kiếm cũ về muộn bị bỏ qua)
+    const requestSeq = useRef(0);
     const [currentAdminId, setCurrentAdminId] = useState(0);
 
     // Modal State
@@ -33,11 +41,11 @@ const AdminDashboard = () => {
     const [userStats, setUserStats] = useState<any>(null);
     const [loadingStats, setLoadingStats] = useState(false);
 
-    // Counts for Tabs
+    // Counts for Tabs (server-side totals, not just the loaded pages)
     const counts = {
-        admin: allUsers.filter(u => u.role.name === 'ADMIN').length,
-        teacher: allUsers.filter(u => u.role.name === 'TEACHER').length,
-        student: allUsers.filter(u => u.role.name === 'STUDENT').length,
+        admin: roleCounts.ADMIN ?? 0,
+        teacher: roleCounts.TEACHER ?? 0,
+        student: roleCounts.STUDENT ?? 0,
     };
 
     // Init
@@ -45,42 +53,60 @@ const AdminDashboard = () => {
         const init = async () => {
             const userStr = await AsyncStorage.getItem("user");
             if (userStr) setCurrentAdminId(JSON.parse(userStr).id);
-            fetchUsers();
         };
         init();
     }, []);
 
+    useEffect(() => {
+        const timer = setTimeout(() => setDebouncedSearch(searchText.trim()), SEARCH_DEBOUNCE_MS);
+        return () => clearTimeout(timer);
+    }, [searchText]);
+
+    // Đổi tab hoặc từ khóa -> tải lại trang đầu (lọc role + search trên server)
+    useEffect(() => {
+        fetchUsers();
+    }, [activeTab, debouncedSearch]);
+
+    const fetchCounts = async () => {
+        try {
+            setRoleCounts(await getAdminUserCounts());
+        } catch (error) {
+            console.log("Failed to load user counts", error);
+        }
+    };
+
+    // First page of the active tab's role (also used by pull-to-refresh)
     const fetchUsers = async () => {
+        fetchCounts();
+        const seq = ++requestSeq.current;
         try {
-            const data = await getAllUsers();
-            setAllUsers(data);
+            const page = await getAdminUsers({ role: activeTab, q: debouncedSearch, size: PAGE_SIZE });
+            if (seq !== requestSeq.current) return;
+            setAllUsers(page.items);
+            setNextCursor(page.nextCursor);
         } catch (error) {
-            Alert.alert("Error", "Failed to load users");
+            if (seq === requestSeq.current) Alert.alert("Error", "Failed to load users");
         } finally {
             setLoading(false);
             setRefreshing(false);
         }
     };
 
-    // Filter Logic (Chạy mỗi khi users, tab hoặc search đổi)
-    useEffect(() => {
-        let result = allUsers;
-
-        // 1. Filter by Tab
-        result = result.filter(u => u.role.name === activeTab);
-
-        // 2. Filter by Search
-        if (searchText) {
-            const lower = searchText.toLowerCase();
-            result = result.filter(u =>
-                u.firstName.toLowerCase().includes(lower) ||
-                u.lastName.toLowerCase().includes(lower) ||
-                u.email.toLowerCase().includes(lower)
-            );
+    const fetchMoreUsers = async () => {
+        if (nextCursor === null || loadingMore) return;
+        setLoadingMore(true);
+        const seq = ++requestSeq.current;
+        try {
+            const page = await getAdminUsers({ role: activeTab, q: debouncedSearch, afterId: nextCursor, size: PAGE_SIZE });
+            if (seq !== requestSeq.current) return;
+            setAllUsers(prev => [...prev, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            Alert.alert("Error", "Failed to load users");
+        } finally {
+            setLoadingMore(false);
         }
-
-        setFilteredUsers(result);
-    }, [allUsers, activeTab, searchText]);
+    };
 
     // Actions
     const handleToggleLock = (user: any) => {
@@ -133,7 +159,7 @@ const AdminDashboard = () => {
                     <View className="absolute left-3 top-3 z-10"><Search size={20} color="#9ca3af" /></View>
                     <TextInput
                         className="bg-sky-50 border border-gray-200 rounded-xl py-3 pl-10 pr-4 text-foreground"
-                        placeholder="Search name, email..."
+                        placeholder="Search name, email, phone..."
                         value={searchText}
                         onChangeText={setSearchText}
                     />
@@ -141,11 +167,23 @@ const AdminDashboard = () => {
 
                 {/* List Content */}
                 <UserListTab
-                    users={filteredUsers}
+                    users={allUsers}
                     onToggleLock={handleToggleLock}
                     onViewStats={handleViewStats}
                 />
 
+                {nextCursor !== null && (
+                    <TouchableOpacity
+                        onPress={fetchMoreUsers}
+                        disabled={loadingMore}
+                        className="mt-2 py-3 rounded-xl border-2 border-primary bg-white items-center"
+                    >
+                        <Text className="font-bold text-primary">
+                            {loadingMore ? "Loading..." : "Load more"}
+                        </Text>
+                    </TouchableOpacity>
+                )}
+
             </ScrollView>
 
             <StatsModal
@@ -0,0 +1,96 @@
+package com.extracenter.backend.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.extracenter.backend.entity.User;
+import com.extracenter.backend.repository.UserRepository;
+
+// Cache trạng thái tài khoản (email / enabled / locked) theo userId cho JwtAuthenticationFilter,
+// để request đã đăng nhập không phải query DB mỗi lần.
+// Giới hạn số phần tử (LRU) + hết hạn sau TTL; UserService evict ngay khi khóa / vô hiệu hóa tài khoản.
+@Component
+public class AuthPrincipalCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    public static final class Principal {
+        private final String email;
+        private final boolean active;
+        private final long expiresAt;
+
+        private Principal(String email, boolean active, long expiresAt) {
+            this.email = email;
+            this.active = active;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, Principal> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Principal> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // Trả về null nếu user không tồn tại
+    public Principal get(Long userId, String email) {
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            Principal cached = entries.get(userId);
+            if (cached != null && cached.expiresAt > now && cached.email.equals(email)) {
+                return cached;
+            }
+        }
+
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        Principal loaded = new Principal(user.getEmail(), user.isEnabled() && !user.isLocked(), now + TTL_MILLIS);
+        synchronized (entries) {
+            entries.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    // Evict ngay, và evict lại sau khi transaction commit để request song song
+    // không nạp lại trạng thái cũ trước khi thay đổi được ghi xuống DB
+    public void evict(Long userId) {
+        remove(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    private void remove(Long userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.extracenter.backend.config;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// calendar_version(course_id, version): bumped by CalendarFeedService.touchCourses on every
+// slot write, so a feed's ETag can be computed without loading or rendering its slots.
+// Plain table (no entity) so the bumps never race with a managed Course being flushed.
+@Component
+@DependsOn("entityManagerFactory")
+public class CalendarVersionTableSetup {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CalendarVersionTableSetup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        // Feeds are validated against this table, so a missing one must stop startup
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS calendar_version ("
+                + "course_id BIGINT PRIMARY KEY, "
+                + "version BIGINT NOT NULL)");
+    }
+}
@@ -0,0 +1,53 @@
+package com.extracenter.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// One-time fill of class_session.center_id (denormalized course.center_id) for rows created
+// before the column existed; new rows get it from ClassSession's @PrePersist.
+// Recorded in app_migration like ClassSlotStorageMigration. A failure stops startup, since
+// sessions without center_id would silently disappear from the center calendar.
+@Component
+@DependsOn("entityManagerFactory")
+public class ClassSessionCenterBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassSessionCenterBackfill.class);
+
+    private static final String MIGRATION = "class_session_center_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClassSessionCenterBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS app_migration ("
+                    + "name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+
+            transactionTemplate.executeWithoutResult(status -> {
+                int claimed = jdbcTemplate.update("INSERT INTO app_migration (name, applied_at) VALUES (?, now()) "
+                        + "ON CONFLICT (name) DO NOTHING", MIGRATION);
+                if (claimed == 0) {
+                    return;
+                }
+
+                int filled = jdbcTemplate.update("UPDATE class_session s SET center_id = c.center_id "
+                        + "FROM course c WHERE c.id = s.course_id AND s.center_id IS NULL");
+                logger.info("ClassSession center_id backfill: {} rows", filled);
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("ClassSession center_id backfill failed", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.extracenter.backend.config;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.extracenter.backend.entity.ClassSession;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.repository.ClassSessionRepository;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.service.ClassSessionReconciler;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// One-time backfill: link legacy ClassSession rows (created before class_slot_id
+// existed) to the ClassSlot they were generated from. Runs on startup, one
+// transaction per course, and is a no-op once every matchable row is linked.
+// Then, once (recorded in app_migration): reconcile every slot that is still running from
+// today on. Sessions used to be synced only when someone opened the course's session list,
+// so slots created or edited back then may have no or outdated future sessions.
+@Component
+public class ClassSessionSlotBackfill implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassSessionSlotBackfill.class);
+
+    private static final String MIGRATION = "class_session_future_reconcile";
+
+    @Autowired
+    private ClassSessionRepository classSessionRepository;
+
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClassSessionReconciler classSessionReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        linkLegacySessions(transactionTemplate);
+        reconcileFutureSessions(transactionTemplate);
+    }
+
+    private void linkLegacySessions(TransactionTemplate transactionTemplate) {
+        List<Long> courseIds = classSessionRepository.findCourseIdsWithUnlinkedSessions();
+        if (courseIds.isEmpty()) {
+            return;
+        }
+
+        int linked = 0;
+        for (Long courseId : courseIds) {
+            Integer count = transactionTemplate.execute(status -> backfillCourse(courseId));
+            linked += count != null ? count : 0;
+        }
+
+        logger.info("ClassSession backfill: linked {} sessions across {} courses", linked, courseIds.size());
+    }
+
+    // Marker and sessions in one transaction: a second instance blocks on the marker insert and
+    // then skips. A failure stops startup, since those slots would keep missing sessions.
+    private void reconcileFutureSessions(TransactionTemplate transactionTemplate) {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS app_migration ("
+                    + "name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+
+            transactionTemplate.executeWithoutResult(status -> {
+                int claimed = jdbcTemplate.update("INSERT INTO app_migration (name, applied_at) VALUES (?, now()) "
+                        + "ON CONFLICT (name) DO NOTHING", MIGRATION);
+                if (claimed == 0) {
+                    return;
+                }
+
+                LocalDate today = LocalDate.now();
+                List<ClassSlot> slots = classSlotRepository.findByEndDateGreaterThanEqual(today);
+                for (ClassSlot slot : slots) {
+                    classSessionReconciler.reconcile(slot, today, slot.getEndDate());
+                }
+                logger.info("ClassSession future reconcile: {} running slots", slots.size());
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("ClassSession future reconcile failed", e);
+        }
+    }
+
+    private int backfillCourse(Long courseId) {
+        List<ClassSlot> slots = classSlotRepository.findByCourseId(courseId);
+        List<SlotRecurrence> recurrences = new ArrayList<>(slots.size());
+        for (ClassSlot slot : slots) {
+            recurrences.add(SlotRecurrence.of(slot));
+        }
+
+        int linked = 0;
+        for (ClassSession session : classSessionRepository.findByCourseIdAndClassSlotIsNull(courseId)) {
+            for (int i = 0; i < slots.size(); i++) {
+                if (matches(slots.get(i), recurrences.get(i), session)) {
+                    session.setClassSlot(slots.get(i));
+                    linked++;
+                    break;
+                }
+            }
+        }
+
+        return linked;
+    }
+
+    private boolean matches(ClassSlot slot, SlotRecurrence recurrence, ClassSession session) {
+        return recurrence.occursOn(session.getDate())
+                && slot.getStartTime() != null && slot.getEndTime() != null
+                && slot.getStartTime().equals(session.getStartTime())
+                && slot.getEndTime().equals(session.getEndTime());
+    }
+}
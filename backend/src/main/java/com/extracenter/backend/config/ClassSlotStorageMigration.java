@@ -0,0 +1,116 @@
+package com.extracenter.backend.config;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.extracenter.backend.entity.ExcludedDatesConverter;
+
+import jakarta.annotation.PostConstruct;
+
+// One-time copy of ClassSlot days / excluded dates from the old element-collection tables
+// (class_slot_days, class_slot_excluded_dates) into the inline days_mask / excluded_days columns.
+// Completion is recorded as a row in app_migration (in the same transaction), not inferred from
+// NULL columns: an empty exclusion list is also stored as NULL and must not be re-imported.
+// A failure stops startup, since slots without days_mask would expand to the wrong dates.
+// The old tables are left in place (read-only from now on) and can be dropped once verified.
+@Component
+@DependsOn("entityManagerFactory")
+public class ClassSlotStorageMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassSlotStorageMigration.class);
+
+    private static final String MIGRATION = "class_slot_inline_storage";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClassSlotStorageMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS app_migration ("
+                    + "name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+
+            transactionTemplate.executeWithoutResult(status -> {
+                // A second instance starting at the same time blocks on this insert and then
+                // gets 0 rows once the first one commits
+                int claimed = jdbcTemplate.update("INSERT INTO app_migration (name, applied_at) VALUES (?, now()) "
+                        + "ON CONFLICT (name) DO NOTHING", MIGRATION);
+                if (claimed == 0) {
+                    return;
+                }
+
+                // Exclusions first: both steps only touch slots never migrated (days_mask still NULL),
+                // which also keeps databases migrated before the marker existed as they are
+                int exclusions = migrateExcludedDates();
+                int days = migrateDays();
+                logger.info("ClassSlot storage migration: {} day masks, {} exclusion lists", days, exclusions);
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("ClassSlot storage migration failed", e);
+        }
+    }
+
+    private int migrateDays() {
+        int migrated = 0;
+        if (tableExists("class_slot_days")) {
+            migrated = jdbcTemplate.update("UPDATE class_slot s SET days_mask = ("
+                    + "SELECT COALESCE(bit_or(" + dayBit("d.day_of_week") + "), 0) FROM class_slot_days d "
+                    + "WHERE d.class_slot_id = s.id) WHERE s.days_mask IS NULL");
+        }
+
+        // Slots that only ever had the legacy single day_of_week column
+        jdbcTemplate.update("UPDATE class_slot s SET days_mask = " + dayBit("s.day_of_week")
+                + " WHERE s.days_mask IS NULL OR (s.days_mask = 0 AND s.day_of_week IS NOT NULL)");
+        return migrated;
+    }
+
+    // DayOfWeek stored as EnumType.STRING -> bit of days_mask (same layout as DayOfWeekMaskConverter)
+    private static String dayBit(String column) {
+        return "(CASE " + column
+                + " WHEN 'MONDAY' THEN 1 WHEN 'TUESDAY' THEN 2 WHEN 'WEDNESDAY' THEN 4 WHEN 'THURSDAY' THEN 8"
+                + " WHEN 'FRIDAY' THEN 16 WHEN 'SATURDAY' THEN 32 WHEN 'SUNDAY' THEN 64 ELSE 0 END)";
+    }
+
+    private int migrateExcludedDates() {
+        if (!tableExists("class_slot_excluded_dates")) {
+            return 0;
+        }
+
+        Map<Long, Set<LocalDate>> bySlot = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT e.class_slot_id, e.excluded_date FROM class_slot_excluded_dates e "
+                + "JOIN class_slot s ON s.id = e.class_slot_id WHERE s.days_mask IS NULL",
+                rs -> {
+                    bySlot.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getDate(2).toLocalDate());
+                });
+
+        List<Object[]> updates = new ArrayList<>(bySlot.size());
+        bySlot.forEach((slotId, dates) -> updates.add(new Object[] { ExcludedDatesConverter.pack(dates), slotId }));
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE class_slot SET excluded_days = ? WHERE id = ?", updates);
+        }
+        return updates.size();
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+        return Boolean.TRUE.equals(exists);
+    }
+}
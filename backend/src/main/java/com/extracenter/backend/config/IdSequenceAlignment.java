@@ -0,0 +1,56 @@
+package com.extracenter.backend.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// ClassSession / Attendance / Enrollment used IDENTITY ids before switching to pooled
+// sequences. ddl-auto creates the sequences starting at 1, so on an existing database
+// they must be moved past MAX(id) before the first insert.
+// Runs right after the EntityManagerFactory (schema update) and before the web server accepts requests.
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceAlignment {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAlignment.class);
+
+    // Must match allocationSize of the @SequenceGenerator on each entity
+    private static final int ALLOCATION_SIZE = 50;
+
+    // sequence -> table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "class_session_seq", "class_session",
+            "attendance_seq", "attendance",
+            "enrollment_seq", "enrollment");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAlignment(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+                if (maxId == null || lastValue == null || lastValue > maxId) {
+                    return;
+                }
+
+                // Pooled optimizer hands out (value - allocationSize, value], so leave a full block of headroom
+                jdbcTemplate.queryForObject("SELECT setval(CAST(? AS regclass), ?)", Long.class, sequence, maxId + ALLOCATION_SIZE);
+                logger.info("Moved sequence {} past max id {} of table {}", sequence, maxId, table);
+            } catch (Exception e) {
+                logger.error("Could not align sequence {}: {}", sequence, e.getMessage());
+            }
+        });
+    }
+}
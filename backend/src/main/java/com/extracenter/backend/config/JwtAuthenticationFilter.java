@@ -13,10 +13,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.extracenter.backend.entity.User;
 import com.extracenter.backend.repository.UserRepository;
 import com.extracenter.backend.utils.JwtUtils;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,6 +31,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AuthPrincipalCache authPrincipalCache;
+
     @Override
         protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain)
@@ -42,17 +45,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (jwtUtils.validateToken(token)) {
-                String email = jwtUtils.extractEmail(token);
+            // 2. Verify + parse token đúng 1 lần
+            Claims claims = jwtUtils.parseClaims(token);
 
-                User user = userRepository.findByEmail(email).orElse(null);
-                if (user == null || !user.isEnabled() || user.isLocked()) {
+            if (claims != null) {
+                String email = claims.getSubject();
+
+                if (!isAccountActive(jwtUtils.extractUserId(claims), email)) {
                     SecurityContextHolder.clearContext();
                     response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Account is no longer active.");
                     return;
                 }
 
-                String role = jwtUtils.extractRole(token);
+                String role = claims.get("role", String.class);
 
                 List<GrantedAuthority> authorities = new ArrayList<>();
 
@@ -72,4 +77,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private boolean isAccountActive(Long userId, String email) {
+        if (userId == null) {
+            // Token cũ không có claim userId -> tra DB theo email như trước
+            return userRepository.findByEmail(email)
+                    .map(user -> user.isEnabled() && !user.isLocked())
+                    .orElse(false);
+        }
+
+        AuthPrincipalCache.Principal principal = authPrincipalCache.get(userId, email);
+        return principal != null && principal.isActive() && principal.getEmail().equals(email);
+    }
+}
@@ -0,0 +1,33 @@
+package com.extracenter.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// MailOutbox.body became nullable (cleared once a mail is SENT), but ddl-auto=update never
+// relaxes an existing NOT NULL constraint, so databases created before that need it dropped.
+@Component
+@DependsOn("entityManagerFactory")
+public class MailOutboxSchemaUpdate {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxSchemaUpdate.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MailOutboxSchemaUpdate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void update() {
+        try {
+            jdbcTemplate.execute("ALTER TABLE mail_outbox ALTER COLUMN body DROP NOT NULL");
+        } catch (Exception e) {
+            logger.error("Could not make mail_outbox.body nullable: {}", e.getMessage());
+        }
+    }
+}
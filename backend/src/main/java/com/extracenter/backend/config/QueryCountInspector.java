@@ -0,0 +1,26 @@
+package com.extracenter.backend.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Đếm số câu SQL Hibernate gửi xuống DB trên thread hiện tại.
+// Đăng ký qua hibernate.session_factory.statement_inspector trong application.properties.
+public class QueryCountInspector implements StatementInspector {
+
+    public static final String HEADER = "X-Query-Count";
+
+    private static final ThreadLocal<Integer> COUNTER = ThreadLocal.withInitial(() -> 0);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTER.set(COUNTER.get() + 1);
+        return sql;
+    }
+
+    public static void reset() {
+        COUNTER.set(0);
+    }
+
+    public static int count() {
+        return COUNTER.get();
+    }
+}
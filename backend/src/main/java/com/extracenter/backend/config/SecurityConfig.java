@@ -47,6 +47,7 @@ public class SecurityConfig {
                         "/api/users/resend-otp",
                         "/api/health",
                         "/api/status",
+                        "/api/schedule/feed/**",
                         "/api/",
                         "/error"
                 ).permitAll()
@@ -81,10 +82,18 @@ public class SecurityConfig {
                         "/api/centers/teaching/**"
                 ).hasAnyRole("TEACHER", "MANAGER", "ADMIN")
 
+                // CENTER CALENDAR FEED (manager check in CalendarFeedService)
+                .requestMatchers("/api/schedule/center/**")
+                .hasAnyRole("TEACHER", "MANAGER", "ADMIN")
+
                 // CENTERS ACCESS
                 .requestMatchers("/api/centers/**")
                 .hasAnyRole("TEACHER", "MANAGER", "ADMIN")
 
+                // UPCOMING SESSIONS (ownership is checked in ClassSessionService)
+                .requestMatchers("/api/class-sessions/student/**")
+                .hasAnyRole("STUDENT", "TEACHER", "MANAGER", "ADMIN")
+
                 // STUDENT ACCESS
                 .requestMatchers(
                         "/api/schedule/student/**",
@@ -0,0 +1,82 @@
+package com.extracenter.backend.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.extracenter.backend.utils.SearchText;
+
+import jakarta.annotation.PostConstruct;
+
+// Student search runs on users.search_text with pg_trgm indexes, so "%keyword%" no longer scans the table:
+// GIN for plain LIKE filters (admin list), GiST for the nearest-first candidate walk of student search;
+// plus a text_pattern_ops btree for "keyword%" (keywords under 3 characters have no trigram).
+// On startup: enable pg_trgm, fill search_text for rows written before the column existed
+// (in chunks, computed with the same SearchText as the entity callback), then create the indexes.
+@Component
+@DependsOn("entityManagerFactory")
+public class StudentSearchIndexSetup {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentSearchIndexSetup.class);
+
+    private static final int BACKFILL_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentSearchIndexSetup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void setup() {
+        boolean trigrams = true;
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (Exception e) {
+            // Needs a role allowed to create extensions; search still works (slowly) without the index
+            logger.error("Could not enable pg_trgm: {}", e.getMessage());
+            trigrams = false;
+        }
+
+        try {
+            int filled = backfill();
+            if (filled > 0) {
+                logger.info("Filled search_text for {} users", filled);
+            }
+            // Prefix LIKE ("kw%") for keywords too short to have a trigram
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_search_text_prefix "
+                    + "ON users (search_text text_pattern_ops)");
+            if (trigrams) {
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_search_text_trgm "
+                        + "ON users USING gin (search_text gin_trgm_ops)");
+                // KNN ordering (ORDER BY keyword <<-> search_text LIMIT n) is only indexable with GiST
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_search_text_gist "
+                        + "ON users USING gist (search_text gist_trgm_ops)");
+            }
+        } catch (Exception e) {
+            logger.error("Student search index setup failed: {}", e.getMessage());
+        }
+    }
+
+    private int backfill() {
+        int total = 0;
+        while (true) {
+            List<Object[]> updates = jdbcTemplate.query(
+                    "SELECT id, first_name, last_name, email, phone_number FROM users "
+                            + "WHERE search_text IS NULL ORDER BY id LIMIT " + BACKFILL_CHUNK,
+                    (rs, rowNum) -> new Object[] {
+                            SearchText.forUser(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)),
+                            rs.getLong(1) });
+            if (updates.isEmpty()) {
+                return total;
+            }
+
+            jdbcTemplate.batchUpdate("UPDATE users SET search_text = ? WHERE id = ?", updates);
+            total += updates.size();
+        }
+    }
+}
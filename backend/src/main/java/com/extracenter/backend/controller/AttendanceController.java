@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.extracenter.backend.dto.AttendanceRequest;
 import com.extracenter.backend.dto.AttendanceSheetResponse;
+import com.extracenter.backend.dto.BulkAttendanceRequest;
 import com.extracenter.backend.entity.Attendance;
 import com.extracenter.backend.service.AttendanceService;
 
@@ -46,6 +47,18 @@ public class AttendanceController {
         }
     }
 
+    // API 1b: Mark attendance for several sessions at once (e.g. a whole week)
+    // URL: http://localhost:8080/api/attendance/bulk
+    @PostMapping("/bulk")
+    public ResponseEntity<?> markAttendanceBulk(@Valid @RequestBody BulkAttendanceRequest request) {
+        try {
+            int saved = attendanceService.markAttendanceBulk(request);
+            return ResponseEntity.ok(Map.of("message", "Attendance saved successfully!", "saved", saved));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // API 2: View the attendance list for a specific lesson day (GET)
     // ARCHITECTURE UPDATE: Replaced slotId and date with just classSessionId!
     // URL: http://localhost:8080/api/attendance?classSessionId=1
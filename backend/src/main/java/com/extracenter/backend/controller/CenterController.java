@@ -1,8 +1,11 @@
 package com.extracenter.backend.controller;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -19,9 +22,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.extracenter.backend.dto.CenterCalendarPage;
+import com.extracenter.backend.dto.CenterClosureRequest;
+import com.extracenter.backend.dto.CenterClosureResponse;
 import com.extracenter.backend.dto.CenterRequest;
 import com.extracenter.backend.dto.ClassSlotOccurrenceOverrideRequest;
 import com.extracenter.backend.dto.ClassSlotRequest;
+import com.extracenter.backend.dto.ClassroomAvailabilityResponse;
 import com.extracenter.backend.dto.ClassroomRequest;
 import com.extracenter.backend.dto.GradeRequest;
 import com.extracenter.backend.dto.SubjectRequest;
@@ -315,6 +322,45 @@ public class CenterController {
         return ResponseEntity.ok(centerService.getClassroomsByCenter(centerId));
     }
 
+    // API: Find free classrooms for a time window (owner only)
+    // GET: http://localhost:8080/api/centers/1/classrooms/availability?startDate=2025-09-01&endDate=2025-12-31
+    //      &daysOfWeek=MONDAY,WEDNESDAY&startTime=09:00&endTime=10:30&minSeat=20
+    @GetMapping("/{centerId}/classrooms/availability")
+    public ResponseEntity<?> getAvailableClassrooms(
+            @PathVariable Long centerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Set<DayOfWeek> daysOfWeek,
+            @RequestParam @DateTimeFormat(pattern = "HH:mm") LocalTime startTime,
+            @RequestParam @DateTimeFormat(pattern = "HH:mm") LocalTime endTime,
+            @RequestParam(required = false) Integer minSeat) {
+        try {
+            List<ClassroomAvailabilityResponse> classrooms = centerService.findAvailableClassrooms(
+                    centerId, startDate, endDate, daysOfWeek, startTime, endTime, minSeat);
+            return ResponseEntity.ok(classrooms);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // API: Center calendar, all sessions of the center in a date window (owner only)
+    // GET: http://localhost:8080/api/centers/1/calendar?startDate=2025-09-01&endDate=2025-09-30&size=500
+    //      next page: same URL + &cursor=<nextCursor of the previous page>
+    @GetMapping("/{centerId}/calendar")
+    public ResponseEntity<?> getCenterCalendar(
+            @PathVariable Long centerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CenterCalendarPage page = centerService.getCenterCalendar(centerId, startDate, endDate, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // API: Create classroom (owner only)
     // POST: http://localhost:8080/api/centers/1/classrooms
     @PostMapping("/{centerId}/classrooms")
@@ -410,6 +456,21 @@ public class CenterController {
         }
     }
 
+    // API: Close the center on a set of dates (holiday, Tet...): every slot skips those dates
+    // and their sessions are cancelled, in one request
+    // POST: http://localhost:8080/api/centers/1/closures
+    @PostMapping("/{centerId}/closures")
+    public ResponseEntity<?> applyClosure(
+            @PathVariable Long centerId,
+            @Valid @RequestBody CenterClosureRequest request) {
+        try {
+            CenterClosureResponse result = centerService.applyClosure(centerId, request);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{centerId}/class-slots/{slotId}/occurrences")
     public ResponseEntity<?> deleteClassSlotOccurrence(
             @PathVariable Long centerId,
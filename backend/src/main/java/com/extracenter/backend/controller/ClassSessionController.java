@@ -1,22 +1,38 @@
 package com.extracenter.backend.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
 
-import com.extracenter.backend.entity.ClassSession;
+import com.extracenter.backend.dto.UpcomingSessionResponse;
 import com.extracenter.backend.service.ClassSessionService;
 
+@RestController
+@RequestMapping("/api/class-sessions")
+@CrossOrigin(originPatterns = "*")
 public class ClassSessionController {
 
     @Autowired
     private ClassSessionService classSessionService;
 
+    // GET: /api/class-sessions/student/5/upcoming?limit=5
     @GetMapping("/student/{studentId}/upcoming")
-    public ResponseEntity<List<ClassSession>> getUpcomingClasses(@PathVariable Long studentId) {
-        return ResponseEntity.ok(classSessionService.getUpcomingByStudent(studentId));
+    public ResponseEntity<?> getUpcomingClasses(
+            @PathVariable Long studentId,
+            @RequestParam(defaultValue = "5") int limit) {
+        try {
+            List<UpcomingSessionResponse> sessions = classSessionService.getUpcomingByStudent(studentId, limit);
+            return ResponseEntity.ok(sessions);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 }
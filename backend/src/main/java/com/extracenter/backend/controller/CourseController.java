@@ -25,6 +25,7 @@ import com.extracenter.backend.dto.CourseSessionResponse;
 import com.extracenter.backend.dto.CourseSessionSlotOptionResponse;
 import com.extracenter.backend.entity.Course;
 import com.extracenter.backend.entity.User;
+import com.extracenter.backend.exception.TimetableClashException;
 import com.extracenter.backend.service.CourseService;
 
 import jakarta.validation.Valid;
@@ -257,6 +258,9 @@ public class CourseController {
         try {
             courseService.addStudentToCourse(courseId, studentId);
             return ResponseEntity.ok(Map.of("message", "Student successfully added to the course."));
+        } catch (TimetableClashException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getClashes()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -3,6 +3,7 @@ package com.extracenter.backend.controller;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.extracenter.backend.dto.EnrollmentRequest;
 import com.extracenter.backend.entity.Enrollment;
+import com.extracenter.backend.exception.TimetableClashException;
 import com.extracenter.backend.service.EnrollmentService;
 
 import jakarta.validation.Valid;
@@ -32,6 +34,10 @@ public class EnrollmentController {
             Enrollment enrollment = enrollmentService.addStudentToCourse(request);
             // BEST PRACTICE: Return JSON so React handles it cleanly
             return ResponseEntity.ok(Map.of("message", "Success! Added student: " + request.getStudentEmail()));
+        } catch (TimetableClashException e) {
+            // 409 + the clashing sessions so the UI can show which classes overlap
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getClashes()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
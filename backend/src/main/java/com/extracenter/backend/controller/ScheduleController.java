@@ -2,25 +2,36 @@ package com.extracenter.backend.controller;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.extracenter.backend.config.QueryCountInspector;
 import com.extracenter.backend.dto.ScheduleResponse;
+import com.extracenter.backend.dto.TeacherBusyInterval;
 import com.extracenter.backend.entity.ClassSession;
 import com.extracenter.backend.entity.ClassSlot;
 import com.extracenter.backend.repository.ClassSessionRepository;
 import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.service.CalendarFeedService;
+import com.extracenter.backend.service.TeacherAvailabilityIndex;
 
 @RestController
 @RequestMapping("/api/schedule")
@@ -33,6 +44,14 @@ public class ScheduleController {
     @Autowired
     private ClassSessionRepository classSessionRepository;
 
+    @Autowired
+    private TeacherAvailabilityIndex teacherAvailabilityIndex;
+
+    @Autowired
+    private CalendarFeedService calendarFeedService;
+
+    private static final String CALENDAR_TYPE = "text/calendar;charset=UTF-8";
+
     // ==========================================
     // 1. GENERAL WEEKLY RULES (ClassSlot)
     // ==========================================
@@ -65,8 +84,12 @@ public class ScheduleController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
+        QueryCountInspector.reset();
         List<ClassSession> sessions = classSessionRepository.findByTeacherIdAndDateRange(teacherId, startDate, endDate);
-        return ResponseEntity.ok(mapToSessionResponse(sessions));
+        List<ScheduleResponse> body = mapToSessionResponse(sessions);
+        return ResponseEntity.ok()
+                .header(QueryCountInspector.HEADER, String.valueOf(QueryCountInspector.count()))
+                .body(body);
     }
 
     @GetMapping("/student/{studentId}/sessions")
@@ -75,8 +98,109 @@ public class ScheduleController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
+        QueryCountInspector.reset();
         List<ClassSession> sessions = classSessionRepository.findByStudentIdAndDateRange(studentId, startDate, endDate);
-        return ResponseEntity.ok(mapToSessionResponse(sessions));
+        List<ScheduleResponse> body = mapToSessionResponse(sessions);
+        return ResponseEntity.ok()
+                .header(QueryCountInspector.HEADER, String.valueOf(QueryCountInspector.count()))
+                .body(body);
+    }
+
+    // ==========================================
+    // 3. FREE / BUSY (all centers)
+    // ==========================================
+
+    // Busy rules of a teacher in [startDate, endDate], one entry per class slot (not per session)
+    @GetMapping("/teacher/{teacherId}/free-busy")
+    public ResponseEntity<?> getTeacherFreeBusy(
+            @PathVariable Long teacherId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "End date must be on or after start date."));
+        }
+
+        List<TeacherBusyInterval> busy = teacherAvailabilityIndex.busyIntervals(teacherId, startDate, endDate);
+        return ResponseEntity.ok(busy);
+    }
+
+    // ==========================================
+    // 4. ICALENDAR FEEDS (subscribe from Google/Apple/Outlook)
+    // ==========================================
+
+    @GetMapping(value = "/teacher/{teacherId}/calendar.ics", produces = CALENDAR_TYPE)
+    public ResponseEntity<byte[]> getTeacherCalendar(@PathVariable Long teacherId, WebRequest request) {
+        return checkedCalendarResponse(CalendarFeedService.Scope.TEACHER, teacherId, request);
+    }
+
+    @GetMapping(value = "/student/{studentId}/calendar.ics", produces = CALENDAR_TYPE)
+    public ResponseEntity<byte[]> getStudentCalendar(@PathVariable Long studentId, WebRequest request) {
+        return checkedCalendarResponse(CalendarFeedService.Scope.STUDENT, studentId, request);
+    }
+
+    @GetMapping(value = "/center/{centerId}/calendar.ics", produces = CALENDAR_TYPE)
+    public ResponseEntity<byte[]> getCenterCalendar(@PathVariable Long centerId, WebRequest request) {
+        return checkedCalendarResponse(CalendarFeedService.Scope.CENTER, centerId, request);
+    }
+
+    // Subscription URL for calendar apps (no JWT): the token is the credential
+    @GetMapping(value = "/feed/{token}.ics", produces = CALENDAR_TYPE)
+    public ResponseEntity<byte[]> getCalendarByToken(@PathVariable String token, WebRequest request) {
+        return calendarFeedService.resolveToken(token)
+                .map(target -> calendarResponse(target.scope(), target.id(), request))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Creates (or rotates) the current user's feed token; the old URL stops working
+    @PostMapping("/calendar-token")
+    public ResponseEntity<?> createCalendarToken() {
+        try {
+            String token = calendarFeedService.issueToken();
+            String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/schedule/feed/{token}.ics")
+                    .buildAndExpand(token)
+                    .toUriString();
+            return ResponseEntity.ok(Map.of("token", token, "url", url));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/calendar-token")
+    public ResponseEntity<?> revokeCalendarToken() {
+        try {
+            calendarFeedService.revokeToken();
+            return ResponseEntity.ok(Map.of("message", "Calendar feed link revoked."));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // JWT feeds: owner / center manager / admin only (no body: the endpoint produces text/calendar)
+    private ResponseEntity<byte[]> checkedCalendarResponse(CalendarFeedService.Scope scope, Long id,
+            WebRequest request) {
+        try {
+            calendarFeedService.checkAccess(scope, id);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return calendarResponse(scope, id, request);
+    }
+
+    // The ETag is computed before the feed is built: If-None-Match matching it -> 304
+    // without loading a single slot. Computing it first also means a change racing with
+    // the build can only make the next poll refetch, never hide an update.
+    private ResponseEntity<byte[]> calendarResponse(CalendarFeedService.Scope scope, Long id, WebRequest request) {
+        String etag = calendarFeedService.etag(scope, id);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.parseMediaType(CALENDAR_TYPE))
+                .body(calendarFeedService.build(scope, id));
     }
 
     // ==========================================
@@ -192,40 +316,12 @@ public class ScheduleController {
         }).collect(Collectors.toList());
     }
 
+    // Phòng học lấy trực tiếp từ slot đã gắn với session (đã JOIN FETCH trong query)
     private String resolveSessionRoomName(ClassSession session) {
-        if (session.getCourse() == null || session.getDate() == null
-                || session.getStartTime() == null || session.getEndTime() == null) {
+        ClassSlot slot = session.getClassSlot();
+        if (slot == null || slot.getClassroom() == null) {
             return "N/A";
         }
-
-        List<ClassSlot> slots = classSlotRepository.findByCourseId(session.getCourse().getId());
-        for (ClassSlot slot : slots) {
-            if (session.getDate().isBefore(slot.getStartDate()) || session.getDate().isAfter(slot.getEndDate())) {
-                continue;
-            }
-
-            Set<java.time.DayOfWeek> effectiveDays = slot.getDaysOfWeek();
-            if ((effectiveDays == null || effectiveDays.isEmpty()) && slot.getDayOfWeek() != null) {
-                effectiveDays = Set.of(slot.getDayOfWeek());
-            }
-
-            if (effectiveDays == null || !effectiveDays.contains(session.getDate().getDayOfWeek())) {
-                continue;
-            }
-
-            if (slot.getExcludedDates() != null && slot.getExcludedDates().contains(session.getDate())) {
-                continue;
-            }
-
-            if (slot.getStartTime() == null || slot.getEndTime() == null
-                    || !slot.getStartTime().equals(session.getStartTime())
-                    || !slot.getEndTime().equals(session.getEndTime())) {
-                continue;
-            }
-
-            return slot.getClassroom() != null ? slot.getClassroom().getLocation() : "N/A";
-        }
-
-        return "N/A";
+        return slot.getClassroom().getLocation();
     }
-}
\ No newline at end of file
+}
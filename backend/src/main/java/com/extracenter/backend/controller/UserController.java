@@ -1,8 +1,15 @@
 package com.extracenter.backend.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,7 +23,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.extracenter.backend.dto.AdminUserFilter;
+import com.extracenter.backend.dto.AdminUserResponse;
 import com.extracenter.backend.dto.ChangePasswordRequest;
 import com.extracenter.backend.dto.CreateStudentRequest;
 import com.extracenter.backend.dto.LoginRequest;
@@ -28,8 +38,8 @@ import com.extracenter.backend.dto.UserProfileResponse;
 import com.extracenter.backend.dto.UserStatsResponse;
 import com.extracenter.backend.dto.VerifyOtpRequest;
 import com.extracenter.backend.entity.User;
-import com.extracenter.backend.repository.UserRepository;
 import com.extracenter.backend.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
@@ -41,7 +51,7 @@ public class UserController {
     private UserService userService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ObjectMapper objectMapper;
 
     // 1. API: Đăng ký Giáo viên (Bước 1 - Gửi mail)
     // POST: http://localhost:8080/api/users/register-teacher
@@ -154,20 +164,26 @@ public class UserController {
     }
 
     // API Tìm kiếm học sinh
-    // GET: /api/users/search?keyword=Nguyen Van
+    // GET: /api/users/search?keyword=Nguyen Van&limit=20
     @GetMapping("/search")
     @PreAuthorize("hasAnyAuthority('TEACHER','ROLE_TEACHER','MANAGER','ROLE_MANAGER','ADMIN','ROLE_ADMIN')")
-    public ResponseEntity<List<User>> searchStudents(@RequestParam String keyword) {
-        return ResponseEntity.ok(userRepository.searchStudents(keyword));
+    public ResponseEntity<List<User>> searchStudents(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(userService.searchStudents(keyword, limit));
     }
 
     @GetMapping("/teacher/{teacherId}/students")
     @PreAuthorize("hasAnyAuthority('TEACHER','ROLE_TEACHER','MANAGER','ROLE_MANAGER','ADMIN','ROLE_ADMIN')")
     public ResponseEntity<?> getTeacherStudents(
             @PathVariable Long teacherId,
-            @RequestParam(defaultValue = "true") boolean active) {
+            @RequestParam(defaultValue = "true") boolean active,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort) {
         try {
-            List<TeacherStudentResponse> students = userService.getTeacherVisibleStudents(teacherId, active);
+            List<TeacherStudentResponse> students = userService.getTeacherVisibleStudents(
+                    teacherId, active, page, size, sort);
             return ResponseEntity.ok(students);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -309,13 +325,107 @@ public class UserController {
         }
     }
 
-    // API: Get All Users (For Admin Dashboard)
+    // API: Get All Users - legacy plain array, no longer used by the web/mobile admin pages
+    // (they page through /admin/users). Streamed chunk by chunk like the NDJSON export, so the
+    // whole table is never held in memory.
     // GET: /api/users/admin/all
-    @GetMapping("/admin/all")
+    @GetMapping(value = "/admin/all", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('ADMIN','ROLE_ADMIN')")
-    public ResponseEntity<?> getAllUsers() {
-        // In a real app, use Pagination (Pageable) here!
-        return ResponseEntity.ok(userRepository.findAll());
+    public ResponseEntity<StreamingResponseBody> getAllUsers() {
+        StreamingResponseBody body = out -> {
+            out.write('[');
+            boolean[] first = { true };
+            userService.forEachAdminUserChunk(AdminUserFilter.builder().build(), chunk -> {
+                try {
+                    for (AdminUserResponse user : chunk) {
+                        if (!first[0]) {
+                            out.write(',');
+                        }
+                        first[0] = false;
+                        out.write(objectMapper.writeValueAsBytes(user));
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write(']');
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // API: Number of users per role name (admin dashboard tabs / overview)
+    // GET: /api/users/admin/users/counts
+    @GetMapping("/admin/users/counts")
+    @PreAuthorize("hasAnyAuthority('ADMIN','ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Long>> getAdminUserCounts() {
+        return ResponseEntity.ok(userService.getAdminUserCounts());
+    }
+
+    // API: Admin user list, keyset-paginated on id
+    // GET: /api/users/admin/users?role=STUDENT&q=nguyen&enabled=true&locked=false&createdFrom=2025-01-01&createdTo=2025-12-31&size=100
+    //      next page: same URL + &afterId=<nextCursor of the previous page>
+    @GetMapping("/admin/users")
+    @PreAuthorize("hasAnyAuthority('ADMIN','ROLE_ADMIN')")
+    public ResponseEntity<?> getAdminUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Boolean locked,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        AdminUserFilter filter = AdminUserFilter.builder()
+                .role(role)
+                .q(q)
+                .enabled(enabled)
+                .locked(locked)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+        return ResponseEntity.ok(userService.getAdminUserPage(filter, afterId, size));
+    }
+
+    // API: Export every matching user as NDJSON (one JSON object per line), streamed chunk by chunk
+    // GET: /api/users/admin/users/export?role=TEACHER
+    @GetMapping(value = "/admin/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('ADMIN','ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAdminUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Boolean locked,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo) {
+        AdminUserFilter filter = AdminUserFilter.builder()
+                .role(role)
+                .q(q)
+                .enabled(enabled)
+                .locked(locked)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+
+        StreamingResponseBody body = out -> userService.forEachAdminUserChunk(filter, chunk -> {
+            try {
+                for (AdminUserResponse user : chunk) {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+
+import lombok.Builder;
+import lombok.Data;
+
+// Optional filters of the admin user list; null = no filter
+@Data
+@Builder
+public class AdminUserFilter {
+    private String role;
+    private Boolean enabled;
+    private Boolean locked;
+    private LocalDate createdFrom;
+    // Inclusive
+    private LocalDate createdTo;
+    // Name / email / phone fragment, accent-insensitive (matched against users.search_text)
+    private String q;
+}
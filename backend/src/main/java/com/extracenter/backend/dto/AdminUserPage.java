@@ -0,0 +1,14 @@
+package com.extracenter.backend.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AdminUserPage {
+    private List<AdminUserResponse> items;
+    // Pass back as ?afterId= for the next page; null on the last page
+    private Long nextCursor;
+}
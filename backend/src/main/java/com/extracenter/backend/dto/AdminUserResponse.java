@@ -0,0 +1,47 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Flat row of the admin user list, filled by a JPQL constructor expression (no User entity,
+// no lazy role proxy). role stays a nested {id, name} so the admin page keeps reading user.role.name.
+@Data
+@NoArgsConstructor
+public class AdminUserResponse {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String personalEmail;
+    private String phoneNumber;
+    private boolean enabled;
+    private boolean locked;
+    private LocalDateTime createdDate;
+    private RoleInfo role;
+
+    public AdminUserResponse(Long id, String firstName, String lastName, String email, String personalEmail,
+            String phoneNumber, boolean enabled, boolean locked, LocalDateTime createdDate,
+            Long roleId, String roleName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.personalEmail = personalEmail;
+        this.phoneNumber = phoneNumber;
+        this.enabled = enabled;
+        this.locked = locked;
+        this.createdDate = createdDate;
+        this.role = new RoleInfo(roleId, roleName);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RoleInfo {
+        private Long id;
+        private String name;
+    }
+}
@@ -0,0 +1,16 @@
+package com.extracenter.backend.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+// Attendance for several sessions at once (e.g. a teacher submitting a whole week)
+@Data
+public class BulkAttendanceRequest {
+
+    @NotEmpty(message = "Session list cannot be empty")
+    @Valid
+    private List<AttendanceRequest> sessions;
+}
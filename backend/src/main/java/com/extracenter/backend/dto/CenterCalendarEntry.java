@@ -0,0 +1,26 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+// One session of the center calendar, already joined with course / teacher / room names
+@Data
+@Builder
+@AllArgsConstructor
+public class CenterCalendarEntry {
+    private Long id;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String status;
+    private Long courseId;
+    private String courseName;
+    private Long teacherId;
+    private String teacherName;
+    private Long classroomId;
+    private String classroomLocation;
+}
@@ -0,0 +1,14 @@
+package com.extracenter.backend.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CenterCalendarPage {
+    private List<CenterCalendarEntry> items;
+    // Pass back as ?cursor= to get the next page; null when the window is exhausted
+    private String nextCursor;
+}
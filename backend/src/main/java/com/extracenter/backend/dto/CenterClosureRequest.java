@@ -0,0 +1,21 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CenterClosureRequest {
+
+    @NotNull(message = "Manager ID is required")
+    private Long managerId;
+
+    @NotEmpty(message = "At least one closure date is required")
+    private Set<LocalDate> dates;
+
+    // Optional reason written on the cancelled sessions (e.g. "Nghỉ Tết")
+    private String note;
+}
@@ -0,0 +1,15 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CenterClosureResponse {
+    private List<LocalDate> dates;
+    private int slotsUpdated;
+    private int sessionsCancelled;
+}
@@ -0,0 +1,12 @@
+package com.extracenter.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ClassroomAvailabilityResponse {
+    private Long id;
+    private String location;
+    private Integer seat;
+}
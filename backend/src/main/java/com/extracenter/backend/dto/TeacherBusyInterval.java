@@ -0,0 +1,25 @@
+package com.extracenter.backend.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Data;
+
+// One recurring busy rule (a ClassSlot) clipped to the requested window
+@Data
+@Builder
+public class TeacherBusyInterval {
+    private Long slotId;
+    private Long courseId;
+    private Long centerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Set<DayOfWeek> daysOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private List<LocalDate> excludedDates;
+}
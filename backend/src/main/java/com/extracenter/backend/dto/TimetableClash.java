@@ -0,0 +1,22 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+// One session of the new course that overlaps a session the student already has
+@Data
+@Builder
+public class TimetableClash {
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Long classSlotId;
+    private Long conflictingCourseId;
+    private String conflictingCourseName;
+    private Long conflictingClassSlotId;
+    private LocalTime conflictingStartTime;
+    private LocalTime conflictingEndTime;
+}
@@ -0,0 +1,24 @@
+package com.extracenter.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+// Row of the "next sessions" list; filled directly by a JPQL constructor expression
+@Data
+@Builder
+@AllArgsConstructor
+public class UpcomingSessionResponse {
+    private Long id;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String status;
+    private String note;
+    private Long courseId;
+    private String courseName;
+    private String classroomLocation;
+}
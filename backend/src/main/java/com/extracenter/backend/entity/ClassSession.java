@@ -3,6 +3,7 @@ package com.extracenter.backend.entity;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -11,8 +12,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,15 +25,21 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "ClassSession")
+@Table(name = "ClassSession", indexes = {
+        @Index(name = "idx_class_session_class_slot", columnList = "class_slot_id"),
+        @Index(name = "idx_class_session_course_date_start", columnList = "course_id, date, start_time"),
+        @Index(name = "idx_class_session_center_date_start_id", columnList = "center_id, date, start_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class ClassSession {
 
+    // Pooled sequence (not IDENTITY) so saveAll can be sent as JDBC batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "class_session_seq")
+    @SequenceGenerator(name = "class_session_seq", sequenceName = "class_session_seq", allocationSize = 50)
     private Long id;
 
     // Which course does this specific session belong to?
@@ -39,6 +49,22 @@ public class ClassSession {
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
 
+    // Denormalized course.center.id so the center calendar can walk its own
+    // (center_id, date, start_time, id) index. Filled on insert; entity updates never
+    // write it (a stale copy could undo a course move), only updateCenterIdByCourseId does.
+    @JsonIgnore
+    @Column(name = "center_id", updatable = false)
+    private Long centerId;
+
+    // The ClassSlot (weekly rule) this session was generated from.
+    // Null only for legacy rows the backfill could not match to any slot.
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_slot_id")
+    private ClassSlot classSlot;
+
     // The exact date of this lesson (e.g., 2025-11-20)
     @Column(nullable = false)
     private LocalDate date;
@@ -57,4 +83,13 @@ public class ClassSession {
 
     // Teacher can add notes: "Make-up class", "Test day", etc.
     private String note;
+
+    // Every creation path (generation, reconciler, manual) goes through here
+    @PrePersist
+    @SuppressWarnings("unused")
+    private void fillCenterId() {
+        if (centerId == null && course != null && course.getCenter() != null) {
+            centerId = course.getCenter().getId();
+        }
+    }
 }
\ No newline at end of file
@@ -3,14 +3,15 @@ package com.extracenter.backend.entity;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -41,16 +42,16 @@ public class ClassSlot {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "class_slot_days", joinColumns = @JoinColumn(name = "class_slot_id"))
-    @Column(name = "day_of_week", nullable = false)
-    @Enumerated(EnumType.STRING)
-    private Set<DayOfWeek> daysOfWeek = new HashSet<>();
+    // Stored inline (7-bit mask + packed dates) instead of the old class_slot_days /
+    // class_slot_excluded_dates tables, so loading a slot is a single-row read.
+    // Both sets are unmodifiable: build a new set and call the setter to change them.
+    @Convert(converter = DayOfWeekMaskConverter.class)
+    @Column(name = "days_mask")
+    private Set<DayOfWeek> daysOfWeek = Collections.emptySet();
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "class_slot_excluded_dates", joinColumns = @JoinColumn(name = "class_slot_id"))
-    @Column(name = "excluded_date", nullable = false)
-    private Set<LocalDate> excludedDates = new HashSet<>();
+    @Convert(converter = ExcludedDatesConverter.class)
+    @Column(name = "excluded_days")
+    private Set<LocalDate> excludedDates = Collections.emptySortedSet();
 
     // Backward compatibility for existing schema where ClassSlot has a required
     // day_of_week column.
@@ -92,12 +93,25 @@ public class ClassSlot {
     @JoinColumn(name = "classroom_id")
     private Classroom classroom;
 
+    public void setDaysOfWeek(Set<DayOfWeek> days) {
+        EnumSet<DayOfWeek> copy = EnumSet.noneOf(DayOfWeek.class);
+        if (days != null) {
+            copy.addAll(days);
+        }
+        this.daysOfWeek = Collections.unmodifiableSet(copy);
+    }
+
+    public void setExcludedDates(Set<LocalDate> dates) {
+        this.excludedDates = dates == null || dates.isEmpty()
+                ? Collections.emptySortedSet()
+                : Collections.unmodifiableSortedSet(new TreeSet<>(dates));
+    }
+
     @PrePersist
     @PreUpdate
     private void syncLegacyDayOfWeek() {
         if ((daysOfWeek == null || daysOfWeek.isEmpty()) && dayOfWeek != null) {
-            daysOfWeek = new HashSet<>();
-            daysOfWeek.add(dayOfWeek);
+            setDaysOfWeek(EnumSet.of(dayOfWeek));
         }
 
         if (dayOfWeek == null && daysOfWeek != null && !daysOfWeek.isEmpty()) {
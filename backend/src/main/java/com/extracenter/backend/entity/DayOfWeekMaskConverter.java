@@ -0,0 +1,44 @@
+package com.extracenter.backend.entity;
+
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Set<DayOfWeek> <-> 7-bit int column (bit 0 = Monday ... bit 6 = Sunday).
+// @Immutable: ClassSlot always replaces the set instead of mutating it, so dirty checking compares by value.
+@Converter
+@Immutable
+public class DayOfWeekMaskConverter implements AttributeConverter<Set<DayOfWeek>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<DayOfWeek> days) {
+        int mask = 0;
+        if (days != null) {
+            for (DayOfWeek day : days) {
+                mask |= 1 << (day.getValue() - 1);
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public Set<DayOfWeek> convertToEntityAttribute(Integer mask) {
+        return Collections.unmodifiableSet(toSet(mask == null ? 0 : mask));
+    }
+
+    private static EnumSet<DayOfWeek> toSet(int mask) {
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & (1 << (day.getValue() - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
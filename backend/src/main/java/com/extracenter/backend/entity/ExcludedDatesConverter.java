@@ -0,0 +1,50 @@
+package com.extracenter.backend.entity;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Set<LocalDate> <-> packed bytea: sorted epoch days, 4 bytes each (big-endian).
+// A slot with a few skipped holidays costs a few dozen bytes in its own row instead of a side table.
+@Converter
+@Immutable
+public class ExcludedDatesConverter implements AttributeConverter<Set<LocalDate>, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(Set<LocalDate> dates) {
+        if (dates == null || dates.isEmpty()) {
+            return null;
+        }
+        return pack(dates);
+    }
+
+    @Override
+    public Set<LocalDate> convertToEntityAttribute(byte[] packed) {
+        if (packed == null || packed.length == 0) {
+            return Collections.emptySortedSet();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        while (buffer.remaining() >= Integer.BYTES) {
+            dates.add(LocalDate.ofEpochDay(buffer.getInt()));
+        }
+        return Collections.unmodifiableSortedSet(dates);
+    }
+
+    public static byte[] pack(Set<LocalDate> dates) {
+        long[] days = dates.stream().mapToLong(LocalDate::toEpochDay).sorted().distinct().toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(days.length * Integer.BYTES);
+        for (long day : days) {
+            buffer.putInt((int) day);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,64 @@
+package com.extracenter.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbound email queue: rows are written in the caller's transaction and
+// delivered (with retry/backoff) by MailDispatcher.
+@Entity
+@Table(name = "MailOutbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+public class MailOutbox {
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // Cleared once SENT: it can hold OTPs and initial passwords
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    // PENDING -> SENDING (claimed by a dispatcher) -> SENT, back to PENDING on a failed attempt,
+    // or FAILED once max attempts is reached
+    @Column(nullable = false)
+    private String status = PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDate;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public MailOutbox(String recipient, String subject, String body) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.createdDate = LocalDateTime.now();
+        this.nextAttemptAt = this.createdDate;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.extracenter.backend.utils.SearchText;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.CascadeType;
@@ -16,12 +17,15 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -30,7 +34,9 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "Users")
+@Table(name = "Users", indexes = {
+        @Index(name = "idx_users_created_by_teacher", columnList = "created_by_teacher_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -75,6 +81,18 @@ public class User {
     // Used for OTP verification status
     private boolean isEnabled = false;
 
+    // Accent-free "lastName firstName | email | phone" for the trigram search
+    // (GIN index created by StudentSearchIndexSetup); refreshed on every insert/update
+    @Column(name = "search_text", length = 512)
+    @JsonIgnore
+    private String searchText;
+
+    // SHA-256 of the personal calendar feed token (CalendarFeedService); null = no feed
+    @Column(name = "calendar_feed_token_hash", length = 64, unique = true)
+    @JsonIgnore
+    @ToString.Exclude
+    private String calendarFeedTokenHash;
+
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
@@ -120,6 +138,13 @@ public class User {
     @JsonIgnore
     private Set<Center> connectedCenters = new HashSet<>();
 
+    @PrePersist
+    @PreUpdate
+    @SuppressWarnings("unused")
+    private void refreshSearchText() {
+        this.searchText = SearchText.forUser(firstName, lastName, email, phoneNumber);
+    }
+
     // Safely remove ManyToMany relationships before deleting the User
     // to prevent Foreign Key constraint errors.
     @PreRemove
@@ -0,0 +1,21 @@
+package com.extracenter.backend.exception;
+
+import java.util.List;
+
+import com.extracenter.backend.dto.TimetableClash;
+
+// Thrown when enrolling a student would overlap a course they already take.
+// Carries the clashing sessions so the controller can return them with a 409.
+public class TimetableClashException extends RuntimeException {
+
+    private final List<TimetableClash> clashes;
+
+    public TimetableClashException(String message, List<TimetableClash> clashes) {
+        super(message);
+        this.clashes = List.copyOf(clashes);
+    }
+
+    public List<TimetableClash> getClashes() {
+        return clashes;
+    }
+}
@@ -1,5 +1,6 @@
 package com.extracenter.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,9 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     // Fetch the attendance list for a specific lesson (to view or edit)
     List<Attendance> findByClassSessionId(Long classSessionId);
 
+    // Bulk attendance: existing records of every session in the payload
+    List<Attendance> findByClassSessionIdIn(Collection<Long> classSessionIds);
+
     // Check if attendance has already been taken for this specific lesson
     boolean existsByClassSessionId(Long classSessionId);
 
@@ -17,6 +17,8 @@ public interface CenterRepository extends JpaRepository<Center, Long> {
 
     List<Center> findByManagerIdAndArchivedAtIsNull(Long managerId);
 
+    boolean existsByIdAndManagerId(Long id, Long managerId);
+
     List<Center> findByManagerIdAndArchivedAtIsNotNullOrderByArchivedAtDesc(Long managerId);
 
     // Find centers where a teacher is teaching courses,
@@ -1,10 +1,11 @@
 package com.extracenter.backend.repository;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -12,6 +13,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.extracenter.backend.dto.CenterCalendarEntry;
+import com.extracenter.backend.dto.UpcomingSessionResponse;
 import com.extracenter.backend.entity.ClassSession;
 
 @Repository
@@ -21,13 +24,36 @@ public interface ClassSessionRepository extends JpaRepository<ClassSession, Long
         // Used on the "Course Details" page to show the syllabus/timeline.
         List<ClassSession> findByCourseIdOrderByDateAsc(Long courseId);
 
-        // 2. Calendar View (Admin): Get ALL classes happening within a specific week or
-        // month
-        List<ClassSession> findByDateBetween(LocalDate startDate, LocalDate endDate);
+        // Same as above but with the owning slot + classroom joined in (course timeline view)
+        @Query("SELECT s FROM ClassSession s JOIN FETCH s.classSlot sl LEFT JOIN FETCH sl.classroom "
+                        + "WHERE s.course.id = :courseId ORDER BY s.date ASC, s.startTime ASC")
+        List<ClassSession> findLinkedByCourseIdWithSlot(@Param("courseId") Long courseId);
+
+        // 2. Calendar View (Manager): one page of a center's sessions in [startDate, endDate],
+        // keyset-paginated on (date, startTime, id) strictly after the cursor. Filters on the
+        // denormalized centerId and compares the cursor as one row value, so PostgreSQL starts
+        // an index scan of idx_class_session_center_date_start_id right at the cursor.
+        @Query("SELECT new com.extracenter.backend.dto.CenterCalendarEntry("
+                        + "s.id, s.date, s.startTime, s.endTime, s.status, c.id, c.name, t.id, "
+                        + "CONCAT(COALESCE(t.firstName, ''), ' ', COALESCE(t.lastName, '')), r.id, r.location) "
+                        + "FROM ClassSession s JOIN s.course c LEFT JOIN c.teacher t "
+                        + "LEFT JOIN s.classSlot sl LEFT JOIN sl.classroom r "
+                        + "WHERE s.centerId = :centerId AND s.date <= :endDate "
+                        + "AND (s.date, s.startTime, s.id) > (:afterDate, :afterTime, :afterId) "
+                        + "ORDER BY s.date ASC, s.startTime ASC, s.id ASC")
+        List<CenterCalendarEntry> findCenterCalendarPage(
+                        @Param("centerId") Long centerId,
+                        @Param("endDate") LocalDate endDate,
+                        @Param("afterDate") LocalDate afterDate,
+                        @Param("afterTime") LocalTime afterTime,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
 
         // 3. Calendar View (Teacher): Get classes for a specific teacher within a date
         // range
-        @Query("SELECT s FROM ClassSession s WHERE s.course.teacher.id = :teacherId AND s.date BETWEEN :startDate AND :endDate ORDER BY s.date ASC, s.startTime ASC")
+        @Query("SELECT s FROM ClassSession s JOIN FETCH s.course c LEFT JOIN FETCH c.subject LEFT JOIN FETCH c.teacher "
+                        + "LEFT JOIN FETCH s.classSlot sl LEFT JOIN FETCH sl.classroom "
+                        + "WHERE c.teacher.id = :teacherId AND s.date BETWEEN :startDate AND :endDate ORDER BY s.date ASC, s.startTime ASC")
         List<ClassSession> findByTeacherIdAndDateRange(
                         @Param("teacherId") Long teacherId,
                         @Param("startDate") LocalDate startDate,
@@ -35,12 +61,19 @@ public interface ClassSessionRepository extends JpaRepository<ClassSession, Long
 
         // 4. Calendar View (Student): Get classes for a specific student within a date
         // range
-        @Query("SELECT s FROM ClassSession s JOIN s.course c JOIN c.enrollments e WHERE e.student.id = :studentId AND s.date BETWEEN :startDate AND :endDate ORDER BY s.date ASC, s.startTime ASC")
+        @Query("SELECT s FROM ClassSession s JOIN FETCH s.course c LEFT JOIN FETCH c.subject LEFT JOIN FETCH c.teacher JOIN c.enrollments e "
+                        + "LEFT JOIN FETCH s.classSlot sl LEFT JOIN FETCH sl.classroom "
+                        + "WHERE e.student.id = :studentId AND s.date BETWEEN :startDate AND :endDate ORDER BY s.date ASC, s.startTime ASC")
         List<ClassSession> findByStudentIdAndDateRange(
                         @Param("studentId") Long studentId,
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        // Course moved to another center
+        @Modifying
+        @Query("UPDATE ClassSession s SET s.centerId = :centerId WHERE s.course.id = :courseId")
+        int updateCenterIdByCourseId(@Param("courseId") Long courseId, @Param("centerId") Long centerId);
+
         boolean existsByCourseIdAndDateAndStartTimeAndEndTime(Long courseId, LocalDate date, LocalTime startTime,
                         LocalTime endTime);
 
@@ -57,7 +90,58 @@ public interface ClassSessionRepository extends JpaRepository<ClassSession, Long
         @Transactional
         void deleteByCourseId(Long courseId);
 
-        @Query("SELECT cs FROM ClassSession cs JOIN cs.course c JOIN c.enrollments e JOIN e.student s WHERE s.id = :studentId AND cs.startTime >= :now ORDER BY cs.startTime ASC")
-        List<ClassSession> findUpcomingSessionsByStudentId(@Param("studentId") Long studentId,
-                        @Param("now") LocalDateTime now);
+        List<ClassSession> findByClassSlotId(Long classSlotId);
+
+        List<ClassSession> findByClassSlotIdAndDate(Long classSlotId, LocalDate date);
+
+        // Closures: cancel every session of the center's courses on the given dates in one statement
+        @Modifying
+        @Query("UPDATE ClassSession s SET s.status = 'CANCELLED', s.note = COALESCE(:note, s.note) "
+                        + "WHERE s.date IN :dates AND s.status <> 'CANCELLED' "
+                        + "AND s.course.id IN (SELECT c.id FROM Course c WHERE c.center.id = :centerId)")
+        int cancelByCenterIdAndDateIn(
+                        @Param("centerId") Long centerId,
+                        @Param("dates") Collection<LocalDate> dates,
+                        @Param("note") String note);
+
+        // Detach sessions from a slot that is about to be deleted
+        @Modifying
+        @Query("UPDATE ClassSession s SET s.classSlot = null WHERE s.classSlot.id = :slotId")
+        int unlinkFromClassSlot(@Param("slotId") Long slotId);
+
+        // Backfill: legacy sessions created before class_slot_id existed
+        @Query("SELECT DISTINCT s.course.id FROM ClassSession s WHERE s.classSlot IS NULL")
+        List<Long> findCourseIdsWithUnlinkedSessions();
+
+        List<ClassSession> findByCourseIdAndClassSlotIsNull(Long courseId);
+
+        // Reconciler: the slice of one slot's sessions affected by an edit
+        List<ClassSession> findByClassSlotIdAndDateBetween(Long classSlotId, LocalDate from, LocalDate to);
+
+        List<ClassSession> findByCourseIdAndClassSlotIsNullAndDateBetween(Long courseId, LocalDate from, LocalDate to);
+
+        // Sessions that still carry history (attendance, materials, assignments) and must not be deleted
+        @Query("SELECT s.id FROM ClassSession s WHERE s.id IN :ids AND ("
+                        + "EXISTS (SELECT 1 FROM Attendance a WHERE a.classSession = s) "
+                        + "OR EXISTS (SELECT 1 FROM Material m WHERE m.classSession = s) "
+                        + "OR EXISTS (SELECT 1 FROM Assignment asg WHERE asg.classSession = s))")
+        List<Long> findReferencedIds(@Param("ids") Collection<Long> ids);
+
+        // Bulk attendance: the sessions of one payload with their slot in a single query
+        @Query("SELECT s FROM ClassSession s LEFT JOIN FETCH s.classSlot WHERE s.id IN :ids")
+        List<ClassSession> findByIdInWithSlot(@Param("ids") Collection<Long> ids);
+
+        // Next sessions of a student: strictly after (today, now), ordered by (date, startTime).
+        // Served by idx_class_session_course_date_start; the page size caps the rows read.
+        @Query("SELECT new com.extracenter.backend.dto.UpcomingSessionResponse("
+                        + "s.id, s.date, s.startTime, s.endTime, s.status, s.note, c.id, c.name, r.location) "
+                        + "FROM ClassSession s JOIN s.course c LEFT JOIN s.classSlot sl LEFT JOIN sl.classroom r "
+                        + "WHERE c.id IN (SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId) "
+                        + "AND (s.date > :today OR (s.date = :today AND s.startTime >= :now)) "
+                        + "ORDER BY s.date ASC, s.startTime ASC")
+        List<UpcomingSessionResponse> findUpcomingByStudentId(
+                        @Param("studentId") Long studentId,
+                        @Param("today") LocalDate today,
+                        @Param("now") LocalTime now,
+                        Pageable pageable);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,20 +13,75 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.extracenter.backend.entity.ClassSlot;
 
+import jakarta.persistence.LockModeType;
+
 public interface ClassSlotRepository extends JpaRepository<ClassSlot, Long> {
 
     List<ClassSlot> findByCenterId(Long centerId);
 
+    // Flat rows for ClassSlotConflictIndex (no entity loading); daysOfWeek comes back converted from days_mask
+    @Query("SELECT s.id, c.id, r.id, s.startDate, s.endDate, s.startTime, s.endTime, s.dayOfWeek, s.daysOfWeek "
+            + "FROM ClassSlot s LEFT JOIN s.course c LEFT JOIN s.classroom r WHERE s.center.id = :centerId")
+    List<Object[]> findConflictRowsByCenterId(@Param("centerId") Long centerId);
+
+    // Flat rows for TeacherAvailabilityIndex: every slot the teacher teaches, in any center
+    @Query("SELECT s.id, c.id, s.center.id, s.startDate, s.endDate, s.startTime, s.endTime, s.dayOfWeek, "
+            + "s.daysOfWeek, s.excludedDates FROM ClassSlot s JOIN s.course c WHERE c.teacher.id = :teacherId")
+    List<Object[]> findTeacherRuleRows(@Param("teacherId") Long teacherId);
+
+    // Flat rows for the iCalendar feeds (CalendarFeedService), ordered by id so the output is stable
+    String CALENDAR_ROW = "SELECT s.id, s.startDate, s.endDate, s.startTime, s.endTime, s.dayOfWeek, s.daysOfWeek, "
+            + "s.excludedDates, c.name, r.location FROM ClassSlot s JOIN s.course c LEFT JOIN s.classroom r ";
+
+    @Query(CALENDAR_ROW + "WHERE c.teacher.id = :teacherId ORDER BY s.id")
+    List<Object[]> findCalendarRowsByTeacherId(@Param("teacherId") Long teacherId);
+
+    @Query(CALENDAR_ROW + "JOIN Enrollment e ON e.course.id = c.id WHERE e.student.id = :studentId ORDER BY s.id")
+    List<Object[]> findCalendarRowsByStudentId(@Param("studentId") Long studentId);
+
+    // By the course's center, the same course set CalendarFeedService.etag validates
+    @Query(CALENDAR_ROW + "WHERE c.center.id = :centerId ORDER BY s.id")
+    List<Object[]> findCalendarRowsByCenterId(@Param("centerId") Long centerId);
+
+    // Locks the slots a closure will touch (in id order, so two closures cannot deadlock);
+    // findClosureRowsByCenterId then reads them after any concurrent writer has committed
+    @Query(value = "SELECT s.id FROM class_slot s WHERE s.center_id = :centerId "
+            + "AND s.start_date <= :last AND s.end_date >= :first ORDER BY s.id FOR UPDATE", nativeQuery = true)
+    List<Long> lockClosureSlotIds(
+            @Param("centerId") Long centerId,
+            @Param("first") LocalDate first,
+            @Param("last") LocalDate last);
+
+    // Closures: slots of the center whose range touches [first, last], as flat rows
+    @Query("SELECT s.id, s.startDate, s.endDate, s.dayOfWeek, s.daysOfWeek, s.excludedDates, c.id, t.id "
+            + "FROM ClassSlot s JOIN s.course c LEFT JOIN c.teacher t WHERE s.center.id = :centerId "
+            + "AND s.startDate <= :last AND s.endDate >= :first")
+    List<Object[]> findClosureRowsByCenterId(
+            @Param("centerId") Long centerId,
+            @Param("first") LocalDate first,
+            @Param("last") LocalDate last);
+
     Optional<ClassSlot> findByIdAndCenterId(Long slotId, Long centerId);
 
+    // Same, with the row locked (FOR UPDATE) until commit: used before a slot's excluded_days
+    // is read-modified-written, so a concurrent closure / occurrence edit is not overwritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ClassSlot s WHERE s.id = :slotId AND s.center.id = :centerId")
+    Optional<ClassSlot> findByIdAndCenterIdForUpdate(@Param("slotId") Long slotId, @Param("centerId") Long centerId);
+
     List<ClassSlot> findByCourseId(Long courseId);
 
+    // Slots still running on or after the date (startup reconcile)
+    List<ClassSlot> findByEndDateGreaterThanEqual(LocalDate date);
+
     boolean existsByCourseIdAndEndDateGreaterThanEqual(Long courseId, LocalDate date);
 
     boolean existsByClassroomId(Long classroomId);
 
     // FIX: Changed 'e.user.id' to 'e.student.id' to match the Enrollment entity
-    @Query("SELECT DISTINCT s FROM ClassSlot s JOIN Enrollment e ON e.course.id = s.course.id WHERE e.student.id = :studentId")
+    // Course is fetched with the slot: the schedule view and StudentTimetableIndex both read it
+    @Query("SELECT DISTINCT s FROM ClassSlot s JOIN FETCH s.course c "
+            + "JOIN Enrollment e ON e.course.id = c.id WHERE e.student.id = :studentId")
     List<ClassSlot> findByStudentId(@Param("studentId") Long studentId);
 
     // This one was likely working fine, but including it here so your file is
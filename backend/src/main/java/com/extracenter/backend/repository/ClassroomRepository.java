@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.extracenter.backend.entity.Classroom;
 
@@ -11,4 +13,8 @@ public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
     List<Classroom> findByCenterId(Long centerId);
 
     Optional<Classroom> findByIdAndCenterId(Long classroomId, Long centerId);
+
+    // Flat rows (id, seat, location) for the availability bitmap in ClassSlotConflictIndex
+    @Query("SELECT r.id, r.seat, r.location FROM Classroom r WHERE r.center.id = :centerId")
+    List<Object[]> findRoomRowsByCenterId(@Param("centerId") Long centerId);
 }
@@ -1,12 +1,15 @@
 package com.extracenter.backend.repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.extracenter.backend.entity.Course;
+import com.extracenter.backend.entity.CourseStatus;
 import com.extracenter.backend.entity.User;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -51,4 +54,16 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     // teacher, they are only counted once.
     @Query("SELECT COUNT(DISTINCT e.student) FROM Course c JOIN c.enrollments e WHERE c.teacher.id = :teacherId")
     long countStudentsByTeacherId(@Param("teacherId") Long teacherId);
-}
\ No newline at end of file
+
+    // Daily status transitions (CourseStatusScheduler)
+    @Modifying
+    @Query("UPDATE Course c SET c.status = :ended WHERE c.status <> :ended AND c.endDate < :today")
+    int markEndedBefore(@Param("today") LocalDate today, @Param("ended") CourseStatus ended);
+
+    @Modifying
+    @Query("UPDATE Course c SET c.status = :inProgress WHERE c.status = :upcoming "
+            + "AND c.startDate <= :today AND c.endDate >= :today")
+    int markStarted(@Param("today") LocalDate today,
+            @Param("upcoming") CourseStatus upcoming,
+            @Param("inProgress") CourseStatus inProgress);
+}
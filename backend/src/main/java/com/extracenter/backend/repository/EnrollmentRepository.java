@@ -1,5 +1,6 @@
 package com.extracenter.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,17 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     // their class roster).
     List<Enrollment> findByCourseId(Long courseId);
 
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId")
+    List<Long> findCourseIdsByStudentId(@Param("studentId") Long studentId);
+
+    // Does userId teach (or manage the center of) a course this student is enrolled in
+    @Query("SELECT COUNT(e) > 0 FROM Enrollment e JOIN e.course c WHERE e.student.id = :studentId "
+            + "AND (c.teacher.id = :userId OR c.center.manager.id = :userId)")
+    boolean existsByStudentIdAndCourseStaffId(@Param("studentId") Long studentId, @Param("userId") Long userId);
+
+    // Bulk attendance roster for several courses at once
+    List<Enrollment> findByCourseIdIn(Collection<Long> courseIds);
+
     @Modifying
     @Transactional
     void deleteByCourseId(Long courseId);
@@ -51,12 +63,6 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT DISTINCT e.student FROM Enrollment e WHERE e.course.center.id = :centerId")
     List<User> findStudentsByCenterId(@Param("centerId") Long centerId);
 
-    @Query("SELECT DISTINCT e.student FROM Enrollment e " +
-            "LEFT JOIN FETCH e.student.connectedCenters " +
-            "WHERE e.course.teacher.id = :teacherId " +
-            "AND e.student.isEnabled = true")
-    List<User> findActiveStudentsByTeacherId(@Param("teacherId") Long teacherId);
-
     @Query("SELECT DISTINCT e.student FROM Enrollment e " +
             "WHERE e.course.center.id = :centerId " +
             "AND e.course.teacher.id = :teacherId " +
@@ -0,0 +1,34 @@
+package com.extracenter.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.extracenter.backend.entity.MailOutbox;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Next batch of due mails (oldest first), locked for the claiming transaction.
+    // SKIP LOCKED: rows another instance is claiming right now are left to it.
+    @Query(value = "SELECT id FROM mail_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // nextAttemptAt doubles as the lease: a SENDING row is due again once it passes
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = 'SENDING', m.nextAttemptAt = :leaseUntil WHERE m.id IN :ids")
+    int markSending(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE m.status IN :statuses AND m.createdDate < :cutoff")
+    int deleteByStatusInAndCreatedDateBefore(
+            @Param("statuses") Collection<String> statuses,
+            @Param("cutoff") LocalDateTime cutoff);
+
+    long countByStatus(String status);
+}
@@ -1,13 +1,17 @@
 package com.extracenter.backend.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.extracenter.backend.dto.AdminUserResponse;
 import com.extracenter.backend.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -18,20 +22,72 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Find a user by their personal/recovery email.
     Optional<User> findByPersonalEmail(String personalEmail);
 
+    Optional<User> findByCalendarFeedTokenHash(String calendarFeedTokenHash);
+
     // Check if a login email already exists (Used during Registration validation)
     Boolean existsByEmail(String email);
 
     // Check if a backup/personal email already exists
     Boolean existsByPersonalEmail(String personalEmail);
 
-    // Search for students by Name, Phone Number, OR Email (Fuzzy/Partial search)
-    // Uses LOWER() and CONCAT() for case-insensitive, full-name matching
-    @Query("SELECT u FROM User u WHERE u.role.name = 'STUDENT' AND " +
-            "u.isEnabled = true AND " +
-            "(LOWER(CONCAT(u.lastName, ' ', u.firstName)) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-            "OR u.phoneNumber LIKE CONCAT('%', :keyword, '%') " +
-            "OR u.email LIKE CONCAT('%', :keyword, '%'))")
-    List<User> searchStudents(@Param("keyword") String keyword);
+    // Admin user list: one keyset page (id > afterId) as flat rows; every filter is optional (null = any).
+    // contains = "%kw%" on the normalized search_text (escaped), served by the pg_trgm index when present
+    @Query("SELECT new com.extracenter.backend.dto.AdminUserResponse(u.id, u.firstName, u.lastName, u.email, "
+            + "u.personalEmail, u.phoneNumber, u.isEnabled, u.isLocked, u.createdDate, r.id, r.name) "
+            + "FROM User u JOIN u.role r "
+            + "WHERE u.id > :afterId "
+            + "AND (:role IS NULL OR r.name = :role) "
+            + "AND (:enabled IS NULL OR u.isEnabled = :enabled) "
+            + "AND (:locked IS NULL OR u.isLocked = :locked) "
+            + "AND (:createdFrom IS NULL OR u.createdDate >= :createdFrom) "
+            + "AND (:createdTo IS NULL OR u.createdDate < :createdTo) "
+            + "AND (:contains IS NULL OR u.searchText LIKE :contains) "
+            + "ORDER BY u.id ASC")
+    List<AdminUserResponse> findAdminPage(
+            @Param("afterId") Long afterId,
+            @Param("role") String role,
+            @Param("enabled") Boolean enabled,
+            @Param("locked") Boolean locked,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("contains") String contains,
+            Pageable pageable);
+
+    // Search for students by Name, Phone Number, OR Email (partial, accent-insensitive).
+    // keyword must already be SearchText.normalize()d; prefix = "kw%", contains = "%kw%" (escaped).
+    // Candidates are bounded before ranking: up to :candidates prefix matches (btree
+    // text_pattern_ops index) plus the :candidates substring matches closest to the keyword
+    // (word-similarity distance <<->, walked in order by the pg_trgm GiST index; needs >= 3
+    // characters to have a trigram), so a common fragment keeps the best matches rather than
+    // an arbitrary 500. Only those are sorted. Ranking: prefix match first, then word similarity.
+    @Query(value = "SELECT u.* FROM users u WHERE u.id IN (" +
+            "(SELECT p.id FROM users p WHERE p.search_text LIKE :prefix " +
+            "AND p.is_enabled = true AND p.role_id = (SELECT id FROM role WHERE name = 'STUDENT') " +
+            "LIMIT :candidates) " +
+            "UNION " +
+            "(SELECT t.id FROM users t WHERE t.search_text LIKE :contains " +
+            "AND t.is_enabled = true AND t.role_id = (SELECT id FROM role WHERE name = 'STUDENT') " +
+            "ORDER BY :keyword <<-> t.search_text LIMIT :candidates)) " +
+            "ORDER BY (u.search_text LIKE :prefix) DESC, " +
+            "word_similarity(:keyword, u.search_text) DESC, u.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<User> searchStudents(@Param("keyword") String keyword,
+            @Param("prefix") String prefix,
+            @Param("contains") String contains,
+            @Param("candidates") int candidates,
+            @Param("limit") int limit);
+
+    // Short keywords (no trigram to search on): name prefix only ("le", "vu"), served by the
+    // text_pattern_ops btree index on search_text; same :candidates bound before sorting
+    @Query(value = "SELECT u.* FROM users u WHERE u.id IN (" +
+            "SELECT p.id FROM users p WHERE p.search_text LIKE :prefix " +
+            "AND p.is_enabled = true AND p.role_id = (SELECT id FROM role WHERE name = 'STUDENT') " +
+            "LIMIT :candidates) " +
+            "ORDER BY u.search_text, u.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<User> searchStudentsByPrefix(@Param("prefix") String prefix,
+            @Param("candidates") int candidates,
+            @Param("limit") int limit);
 
     // Find users (specifically students) whose connectedCenters list contains this
     // centerId
@@ -44,20 +100,76 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.connectedCenters c WHERE u.role.name = 'STUDENT' AND u.isEnabled = true AND u.createdByTeacher.id = :teacherId AND c IS NULL")
     List<User> findActiveUnassignedStudentsByCreatorTeacherId(@Param("teacherId") Long teacherId);
 
-    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.connectedCenters c WHERE u.role.name = 'STUDENT' AND u.isEnabled = true AND u.createdByTeacher.id = :teacherId")
-    List<User> findActiveStudentsByCreatorTeacherId(@Param("teacherId") Long teacherId);
-
-    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.connectedCenters WHERE u.role.name = 'STUDENT' AND u.isEnabled = false AND u.createdByTeacher.id = :teacherId")
-    List<User> findRolledOutStudentsByCreatorTeacherId(@Param("teacherId") Long teacherId);
+    // Teacher roster in one statement: students the teacher created (active or rolled out) plus,
+    // when active, students enrolled in the teacher's courses; centers aggregated per student.
+    // Row: id, first_name, last_name, email, phone_number, date_of_birth, can_manage,
+    // center_ids ("1,2"), center_names (separated by chr(31)), both ordered by center name.
+    // sortKey: name_asc | name_desc | email_asc | email_desc | created_asc | created_desc
+    @Query(value = "WITH roster AS ("
+            + "SELECT u.id FROM users u JOIN role r ON r.id = u.role_id "
+            + "WHERE r.name = 'STUDENT' AND u.is_enabled = :active AND u.created_by_teacher_id = :teacherId "
+            + "UNION "
+            + "SELECT u.id FROM enrollment e JOIN course c ON c.id = e.course_id "
+            + "JOIN users u ON u.id = e.student_id JOIN role r ON r.id = u.role_id "
+            + "WHERE :active = true AND r.name = 'STUDENT' AND u.is_enabled = true AND c.teacher_id = :teacherId) "
+            + "SELECT u.id, u.first_name, u.last_name, u.email, u.phone_number, u.date_of_birth, "
+            + "COALESCE(u.created_by_teacher_id = :teacherId, false) AS can_manage, "
+            + "string_agg(CAST(ce.id AS text), ',' ORDER BY lower(ce.name), ce.id) AS center_ids, "
+            + "string_agg(ce.name, chr(31) ORDER BY lower(ce.name), ce.id) AS center_names "
+            + "FROM roster ro JOIN users u ON u.id = ro.id "
+            + "LEFT JOIN student_centers sc ON sc.student_id = u.id "
+            + "LEFT JOIN center ce ON ce.id = sc.center_id "
+            + "GROUP BY u.id "
+            + "ORDER BY "
+            + "CASE WHEN :sortKey = 'name_asc' THEN lower(u.last_name) END ASC, "
+            + "CASE WHEN :sortKey = 'name_asc' THEN lower(u.first_name) END ASC, "
+            + "CASE WHEN :sortKey = 'name_desc' THEN lower(u.last_name) END DESC, "
+            + "CASE WHEN :sortKey = 'name_desc' THEN lower(u.first_name) END DESC, "
+            + "CASE WHEN :sortKey = 'email_asc' THEN lower(u.email) END ASC, "
+            + "CASE WHEN :sortKey = 'email_desc' THEN lower(u.email) END DESC, "
+            + "CASE WHEN :sortKey = 'created_asc' THEN u.created_date END ASC, "
+            + "CASE WHEN :sortKey = 'created_desc' THEN u.created_date END DESC, "
+            + "u.id "
+            + "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> findTeacherRosterRows(
+            @Param("teacherId") Long teacherId,
+            @Param("active") boolean active,
+            @Param("sortKey") String sortKey,
+            @Param("limit") int limit,
+            @Param("offset") long offset);
 
     // Find teachers who are linked to a specific center.
     @Query("SELECT u FROM User u JOIN u.connectedCenters c WHERE c.id = :centerId AND u.role.name = 'TEACHER'")
     List<User> findTeachersByCenterId(@Param("centerId") Long centerId);
 
-    // Find users who have not verified their accounts within a certain time frame
-    // (Used by a scheduled Cron Job to delete dead/spam accounts)
-    @Query("SELECT u FROM User u WHERE u.isEnabled = false AND u.createdDate < :cutoffTime")
-    List<User> findUnverifiedUsersBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
+    // Ids of self-registered accounts that never verified their email (still disabled, no ECM
+    // email assigned yet) created before the cutoff, one chunk after afterId (nightly cleanup job).
+    // Deactivated / rolled-out users are also disabled but already got an ECM email; students
+    // created by a teacher keep email = personalEmail, so they are excluded by createdByTeacher.
+    // Anything still referencing the user (courses, centers, enrollments, submissions, created
+    // students) keeps it out, so a chunk never trips over a foreign key.
+    @Query("SELECT u.id FROM User u WHERE u.isEnabled = false AND u.email = u.personalEmail "
+            + "AND u.createdByTeacher IS NULL "
+            + "AND u.createdDate < :cutoffTime AND u.id > :afterId "
+            + "AND NOT EXISTS (SELECT 1 FROM Course c WHERE c.teacher = u OR c.pendingTeacher = u) "
+            + "AND NOT EXISTS (SELECT 1 FROM Center ce WHERE ce.manager = u) "
+            + "AND NOT EXISTS (SELECT 1 FROM Enrollment e WHERE e.student = u) "
+            + "AND NOT EXISTS (SELECT 1 FROM AssignmentSubmission s WHERE s.student = u) "
+            + "AND NOT EXISTS (SELECT 1 FROM User x WHERE x.createdByTeacher = u) "
+            + "ORDER BY u.id")
+    List<Long> findUnverifiedUserIdsBefore(
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_centers WHERE student_id IN :ids", nativeQuery = true)
+    int unlinkCentersByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    // Still-disabled only: an account verified after the cleanup picked it stays
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id IN :ids AND u.isEnabled = false")
+    int deleteUnverifiedByIdIn(@Param("ids") Collection<Long> ids);
 
     // Count how many centers a specific user is connected to/manages
     @Query("SELECT COUNT(c) FROM User u JOIN u.connectedCenters c WHERE u.id = :userId")
@@ -68,4 +180,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Highly useful for the Admin Dashboard statistics!
     @Query("SELECT COUNT(u) FROM User u WHERE u.role.name = :roleName")
     long countByRoleName(@Param("roleName") String roleName);
-}
\ No newline at end of file
+
+    // Row: role name, number of users
+    @Query("SELECT u.role.name, COUNT(u) FROM User u GROUP BY u.role.name")
+    List<Object[]> countGroupedByRoleName();
+}
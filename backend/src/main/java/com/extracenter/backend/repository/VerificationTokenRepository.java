@@ -2,10 +2,15 @@ package com.extracenter.backend.repository;
 
 import com.extracenter.backend.entity.User;
 import com.extracenter.backend.entity.VerificationToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +23,18 @@ public interface VerificationTokenRepository extends JpaRepository<VerificationT
     // types a wrong token.
     Optional<VerificationToken> findByToken(String token);
 
-    // Find all tokens where the expiry date is before the given time (i.e., expired
-    // tokens).
-    // Used by a scheduled task to clean up old, unused tokens from the database.
-    List<VerificationToken> findAllByExpiryDateBefore(LocalDateTime now);
+    // Ids of expired tokens the nightly cleanup may purge, one chunk at a time. An unverified account keeps
+    // its expired OTP until the account itself is old enough to be cleaned up (expired before :cutoff):
+    // registration uses it to tell "pending verification" from "deactivated".
+    // Ids only, so the EAGER user is never loaded.
+    @Query("SELECT t.id FROM VerificationToken t LEFT JOIN t.user u WHERE t.expiryDate < :now "
+            + "AND (t.expiryDate < :cutoff OR u IS NULL OR u.isEnabled = true) ORDER BY t.id")
+    List<Long> findPurgeableIds(@Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff,
+            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM VerificationToken t WHERE t.user.id IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 
     // Find the active verification token for a specific user.
     // OPTIMIZED: Changed to Optional for null safety.
@@ -7,6 +7,7 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.extracenter.backend.dto.ScoreRequest;
@@ -35,37 +36,47 @@ public class AssignmentService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private FileStorageService fileStorageService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     // 1. TẠO BÀI TẬP (GIÁO VIÊN)
-    @Transactional
+    // Upload file ngoài transaction, sau đó mới mở transaction ngắn để ghi DB
     public Assignment createAssignment(String title, String description, LocalDateTime dueDate,
             Long courseId, Long classSessionId, MultipartFile file) throws IOException {
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found!"));
-
-        Assignment assignment = new Assignment();
-        assignment.setTitle(title);
-        assignment.setDescription(description);
-        assignment.setDueDate(dueDate);
-        assignment.setCourse(course);
-
-        // Nếu có gắn vào buổi học cụ thể
-        if (classSessionId != null) {
-            ClassSession session = classSessionRepository.findById(classSessionId)
-                    .orElseThrow(() -> new RuntimeException("Class session not found!"));
-            assignment.setClassSession(session);
-        }
-
         // Nếu giáo viên có đính kèm file đề bài
-        if (file != null && !file.isEmpty()) {
-            String fileUrl = cloudinaryService.uploadFile(file);
-            assignment.setFileUrl(fileUrl);
-            assignment.setFileName(file.getOriginalFilename());
+        String fileUrl = hasFile(file) ? fileStorageService.uploadFile(file) : null;
+
+        try {
+            return transactionTemplate.execute(status -> {
+                Course course = courseRepository.findById(courseId)
+                        .orElseThrow(() -> new RuntimeException("Course not found!"));
+
+                Assignment assignment = new Assignment();
+                assignment.setTitle(title);
+                assignment.setDescription(description);
+                assignment.setDueDate(dueDate);
+                assignment.setCourse(course);
+
+                // Nếu có gắn vào buổi học cụ thể
+                if (classSessionId != null) {
+                    ClassSession session = classSessionRepository.findById(classSessionId)
+                            .orElseThrow(() -> new RuntimeException("Class session not found!"));
+                    assignment.setClassSession(session);
+                }
+
+                if (fileUrl != null) {
+                    assignment.setFileUrl(fileUrl);
+                    assignment.setFileName(file.getOriginalFilename());
+                }
+
+                return assignmentRepository.save(assignment);
+            });
+        } catch (RuntimeException e) {
+            fileStorageService.deleteQuietly(fileUrl);
+            throw e;
         }
-
-        return assignmentRepository.save(assignment);
     }
 
     public List<Assignment> getAssignmentsForCourse(Long courseId) {
@@ -73,24 +84,38 @@ public class AssignmentService {
     }
 
     // --- HÀM MỚI: CẬP NHẬT BÀI TẬP ---
-    @Transactional
     public Assignment updateAssignment(Long id, String title, String description, LocalDateTime dueDate,
             MultipartFile file) throws IOException {
-        Assignment assignment = assignmentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Assignment not found!"));
-
-        assignment.setTitle(title);
-        assignment.setDescription(description);
-        assignment.setDueDate(dueDate);
-
         // Nếu giáo viên tải lên file mới, chúng ta sẽ upload và ghi đè file URL cũ
-        if (file != null && !file.isEmpty()) {
-            String fileUrl = cloudinaryService.uploadFile(file);
-            assignment.setFileUrl(fileUrl);
-            assignment.setFileName(file.getOriginalFilename());
+        String fileUrl = hasFile(file) ? fileStorageService.uploadFile(file) : null;
+        String[] replacedUrl = new String[1];
+
+        Assignment saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Assignment assignment = assignmentRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Assignment not found!"));
+
+                assignment.setTitle(title);
+                assignment.setDescription(description);
+                assignment.setDueDate(dueDate);
+
+                if (fileUrl != null) {
+                    replacedUrl[0] = assignment.getFileUrl();
+                    assignment.setFileUrl(fileUrl);
+                    assignment.setFileName(file.getOriginalFilename());
+                }
+
+                return assignmentRepository.save(assignment);
+            });
+        } catch (RuntimeException e) {
+            fileStorageService.deleteQuietly(fileUrl);
+            throw e;
         }
 
-        return assignmentRepository.save(assignment);
+        // File đề bài cũ không còn được tham chiếu
+        fileStorageService.deleteQuietly(replacedUrl[0]);
+        return saved;
     }
 
     // --- HÀM MỚI: XÓA BÀI TẬP ---
@@ -106,36 +131,54 @@ public class AssignmentService {
     }
 
     // 2. NỘP BÀI (HỌC SINH)
-    @Transactional
     public AssignmentSubmission submitAssignment(Long assignmentId, Long studentId, MultipartFile file)
             throws IOException {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found!"));
-
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found!"));
-
-        // Kiểm tra xem học sinh đã nộp bài này chưa
-        AssignmentSubmission submission = submissionRepository.findByAssignmentIdAndStudentId(assignmentId, studentId)
-                .orElse(new AssignmentSubmission()); // Nếu chưa nộp thì tạo mới, nếu nộp rồi thì ghi đè lại
-
-        submission.setAssignment(assignment);
-        submission.setStudent(student);
-        submission.setSubmittedAt(LocalDateTime.now());
-
-        // Xác định nộp trễ hay đúng hạn
-        if (submission.getSubmittedAt().isAfter(assignment.getDueDate())) {
-            submission.setStatus("LATE");
-        } else {
-            submission.setStatus("SUBMITTED");
+        // Thời điểm nộp tính từ lúc nhận request, không tính thời gian upload
+        LocalDateTime submittedAt = LocalDateTime.now();
+
+        // Upload file bài làm lên Cloudinary (ngoài transaction)
+        String fileUrl = fileStorageService.uploadFile(file);
+        String[] replacedUrl = new String[1];
+
+        AssignmentSubmission saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Assignment assignment = assignmentRepository.findById(assignmentId)
+                        .orElseThrow(() -> new RuntimeException("Assignment not found!"));
+
+                User student = userRepository.findById(studentId)
+                        .orElseThrow(() -> new RuntimeException("Student not found!"));
+
+                // Kiểm tra xem học sinh đã nộp bài này chưa
+                AssignmentSubmission submission = submissionRepository
+                        .findByAssignmentIdAndStudentId(assignmentId, studentId)
+                        .orElse(new AssignmentSubmission()); // Nếu chưa nộp thì tạo mới, nếu nộp rồi thì ghi đè lại
+
+                replacedUrl[0] = submission.getFileUrl();
+                submission.setAssignment(assignment);
+                submission.setStudent(student);
+                submission.setSubmittedAt(submittedAt);
+
+                // Xác định nộp trễ hay đúng hạn
+                if (submission.getSubmittedAt().isAfter(assignment.getDueDate())) {
+                    submission.setStatus("LATE");
+                } else {
+                    submission.setStatus("SUBMITTED");
+                }
+
+                submission.setFileUrl(fileUrl);
+                submission.setFileName(file.getOriginalFilename());
+
+                return submissionRepository.save(submission);
+            });
+        } catch (RuntimeException e) {
+            fileStorageService.deleteQuietly(fileUrl);
+            throw e;
         }
 
-        // Upload file bài làm lên Cloudinary
-        String fileUrl = cloudinaryService.uploadFile(file);
-        submission.setFileUrl(fileUrl);
-        submission.setFileName(file.getOriginalFilename());
-
-        return submissionRepository.save(submission);
+        // Nộp lại: xóa file bài làm cũ
+        fileStorageService.deleteQuietly(replacedUrl[0]);
+        return saved;
     }
 
     // 3. CHẤM ĐIỂM (GIÁO VIÊN)
@@ -158,4 +201,8 @@ public class AssignmentService {
     public List<Assignment> getPendingAssignments(Long studentId) {
         return assignmentRepository.findPendingAssignmentsByStudentId(studentId);
     }
+
+    private static boolean hasFile(MultipartFile file) {
+        return file != null && !file.isEmpty();
+    }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.extracenter.backend.service;
 
-import java.time.DayOfWeek;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.extracenter.backend.dto.AttendanceRequest;
 import com.extracenter.backend.dto.AttendanceSheetResponse;
+import com.extracenter.backend.dto.BulkAttendanceRequest;
 import com.extracenter.backend.entity.Attendance;
 import com.extracenter.backend.entity.AttendanceStatus;
 import com.extracenter.backend.entity.ClassSession;
@@ -19,7 +23,6 @@ import com.extracenter.backend.entity.ClassSlot;
 import com.extracenter.backend.entity.Enrollment;
 import com.extracenter.backend.repository.AttendanceRepository;
 import com.extracenter.backend.repository.ClassSessionRepository;
-import com.extracenter.backend.repository.ClassSlotRepository;
 import com.extracenter.backend.repository.EnrollmentRepository;
 
 @Service
@@ -31,9 +34,6 @@ public class AttendanceService {
     @Autowired
     private ClassSessionRepository classSessionRepository;
 
-    @Autowired
-    private ClassSlotRepository classSlotRepository;
-
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
@@ -41,61 +41,102 @@ public class AttendanceService {
     // the whole process rolls back so we don't end up with partial attendance data.
     @Transactional
     public String markAttendance(AttendanceRequest request) {
+        BulkAttendanceRequest bulk = new BulkAttendanceRequest();
+        bulk.setSessions(List.of(request));
+        markAttendanceBulk(bulk);
+        return "Attendance saved successfully!";
+    }
 
-        // 1. Fetch the specific Class Session (Replaced ClassSlot + Date)
-        ClassSession session = classSessionRepository.findById(request.getClassSessionId())
-                .orElseThrow(() -> new RuntimeException("Error: Class session not found!"));
+    // Set-based upsert for one or many sessions:
+    // 1 query for the sessions, 1 for the rosters, 1 for existing records, then one batched saveAll.
+    @Transactional
+    public int markAttendanceBulk(BulkAttendanceRequest request) {
 
-        // 2. Fetch existing attendance records for this specific lesson (if the teacher
-        // is editing)
-        List<Attendance> existingRecords = attendanceRepository.findByClassSessionId(request.getClassSessionId());
-        ClassSlot attendanceSlot = resolveRequiredSlotForSession(session);
+        // 1. Fetch all Class Sessions of the payload (with their slot)
+        Set<Long> sessionIds = new LinkedHashSet<>();
+        for (AttendanceRequest sessionRequest : request.getSessions()) {
+            sessionIds.add(sessionRequest.getClassSessionId());
+        }
 
-        // OPTIMIZATION: Instead of saving one by one inside the loop, we collect them
-        // all here
-        // and save them to the database in one single batch at the end.
-        List<Attendance> recordsToSave = new ArrayList<>();
+        Map<Long, ClassSession> sessionsById = new HashMap<>();
+        for (ClassSession session : classSessionRepository.findByIdInWithSlot(sessionIds)) {
+            sessionsById.put(session.getId(), session);
+        }
 
-        Long courseId = session.getCourse().getId();
+        Set<Long> courseIds = new HashSet<>();
+        for (Long sessionId : sessionIds) {
+            ClassSession session = sessionsById.get(sessionId);
+            if (session == null) {
+                throw new RuntimeException("Error: Class session " + sessionId + " not found!");
+            }
+            resolveRequiredSlotForSession(session);
+            courseIds.add(session.getCourse().getId());
+        }
 
-        for (AttendanceRequest.StudentStatus status : request.getStudentStatuses()) {
-            Attendance attendance = null;
+        // 2. Roster keyed by (courseId, studentId) -> Enrollment. Only ids are read from the
+        // course/student proxies, so no extra query per student.
+        Map<Long, Map<Long, Enrollment>> rosterByCourse = new HashMap<>();
+        for (Enrollment enrollment : enrollmentRepository.findByCourseIdIn(courseIds)) {
+            rosterByCourse
+                    .computeIfAbsent(enrollment.getCourse().getId(), id -> new HashMap<>())
+                    .put(enrollment.getStudent().getId(), enrollment);
+        }
 
-            // 3. Check if this student already has an attendance record for this session
-            for (Attendance record : existingRecords) {
-                if (record.getEnrollment().getStudent().getId().equals(status.getStudentId())) {
-                    attendance = record; // Record found -> We will update it
-                    break;
-                }
+        // 3. Existing records keyed by (sessionId, enrollmentId) (if the teacher is editing)
+        Map<Long, Map<Long, Attendance>> existingBySession = new HashMap<>();
+        for (Attendance record : attendanceRepository.findByClassSessionIdIn(sessionIds)) {
+            if (record.getEnrollment() == null) {
+                continue;
             }
+            existingBySession
+                    .computeIfAbsent(record.getClassSession().getId(), id -> new HashMap<>())
+                    .put(record.getEnrollment().getId(), record);
+        }
 
-            // 4. If no record exists -> Create a new one
-            if (attendance == null) {
-                attendance = new Attendance();
-                attendance.setClassSession(session);
+        // 4. Hash join the payload against roster + existing records.
+        // Keyed by record so a student listed twice in a session is written once (last entry wins).
+        Map<String, Attendance> recordsToSave = new LinkedHashMap<>();
+
+        for (AttendanceRequest sessionRequest : request.getSessions()) {
+            ClassSession session = sessionsById.get(sessionRequest.getClassSessionId());
+            Long courseId = session.getCourse().getId();
+            Map<Long, Enrollment> roster = rosterByCourse.getOrDefault(courseId, Map.of());
+            Map<Long, Attendance> existing = existingBySession.getOrDefault(session.getId(), Map.of());
+
+            for (AttendanceRequest.StudentStatus status : sessionRequest.getStudentStatuses()) {
+                Enrollment enrollment = roster.get(status.getStudentId());
+                if (enrollment == null) {
+                    throw new RuntimeException(
+                            "Error: Student ID " + status.getStudentId() + " is not enrolled in this course!");
+                }
 
-                // Find the student's Enrollment record for this course
-                Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(status.getStudentId(), courseId)
-                        .orElseThrow(() -> new RuntimeException(
-                                "Error: Student ID " + status.getStudentId() + " is not enrolled in this course!"));
+                String key = session.getId() + ":" + enrollment.getId();
+                Attendance attendance = recordsToSave.get(key);
+                if (attendance == null) {
+                    attendance = existing.get(enrollment.getId());
+                }
 
-                attendance.setEnrollment(enrollment);
-            }
+                // No record exists -> Create a new one
+                if (attendance == null) {
+                    attendance = new Attendance();
+                    attendance.setClassSession(session);
+                    attendance.setEnrollment(enrollment);
+                }
 
-            // 5. Update the status and notes
-            attendance.setDate(session.getDate());
-            attendance.setClassSlot(attendanceSlot);
-            attendance.setStatus(status.getStatus());
-            attendance.setNote(status.getNote());
+                // 5. Update the status and notes
+                attendance.setDate(session.getDate());
+                attendance.setClassSlot(session.getClassSlot());
+                attendance.setStatus(status.getStatus());
+                attendance.setNote(status.getNote());
 
-            // Add to our batch list instead of saving immediately
-            recordsToSave.add(attendance);
+                recordsToSave.put(key, attendance);
+            }
         }
 
-        // 6. Batch Save: This runs 1 big database query instead of 30 small ones!
-        attendanceRepository.saveAll(recordsToSave);
+        // 6. Batch Save: flushed as JDBC batches (hibernate.jdbc.batch_size)
+        attendanceRepository.saveAll(recordsToSave.values());
 
-        return "Attendance saved successfully!";
+        return recordsToSave.size();
     }
 
     // Fetch the attendance data to display on the Frontend UI
@@ -158,26 +199,10 @@ public class AttendanceService {
         }
 
     private ClassSlot resolveRequiredSlotForSession(ClassSession session) {
-        Long courseId = session.getCourse().getId();
-        DayOfWeek sessionDay = session.getDate().getDayOfWeek();
-
-        List<ClassSlot> courseSlots = classSlotRepository.findByCourseId(courseId);
-        for (ClassSlot slot : courseSlots) {
-            boolean inDateRange = !session.getDate().isBefore(slot.getStartDate())
-                    && !session.getDate().isAfter(slot.getEndDate());
-            boolean dayMatches = (slot.getDaysOfWeek() != null && slot.getDaysOfWeek().contains(sessionDay))
-                    || sessionDay.equals(slot.getDayOfWeek());
-            boolean timeMatches = slot.getStartTime() != null
-                    && slot.getEndTime() != null
-                    && slot.getStartTime().equals(session.getStartTime())
-                    && slot.getEndTime().equals(session.getEndTime());
-            boolean excluded = slot.getExcludedDates() != null && slot.getExcludedDates().contains(session.getDate());
-
-            if (inDateRange && dayMatches && timeMatches && !excluded) {
-                return slot;
-            }
+        // Slot is persisted on the session (class_slot_id), no need to scan the course's slots
+        if (session.getClassSlot() == null) {
+            throw new RuntimeException("No valid class slot found for this session. Please edit the session to match an existing class slot.");
         }
-
-        throw new RuntimeException("No valid class slot found for this session. Please edit the session to match an existing class slot.");
+        return session.getClassSlot();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,345 @@
+package com.extracenter.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.extracenter.backend.entity.User;
+import com.extracenter.backend.repository.CenterRepository;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.repository.UserRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// iCalendar (RFC 5545) feeds built from ClassSlot rules: one VEVENT per slot with
+// RRULE (weekly, BYDAY from daysOfWeek) and EXDATE (excludedDates), so the size of a
+// feed depends on the number of slots, not on the number of sessions.
+// Occurrence overrides are their own one-day slots, so they come out as single events.
+// Times are floating (local) with X-WR-TIMEZONE, matching how the app stores them.
+// The ETag comes from calendar_version + course names of the scope (etag()), so a
+// conditional GET is answered before any slot is loaded. Calendar clients cannot send
+// a JWT: each user can hold one revocable feed token (stored hashed) for their own feed.
+@Service
+public class CalendarFeedService {
+
+    public enum Scope {
+        TEACHER, STUDENT, CENTER
+    }
+
+    // Scope + id a feed token resolves to
+    public record FeedTarget(Scope scope, Long id) {
+    }
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String CRLF = "\r\n";
+    // Bump when the rendered format changes so cached feeds are refetched
+    private static final String FORMAT_VERSION = "1";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CenterRepository centerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${calendar.timezone:Asia/Ho_Chi_Minh}")
+    private String timezone;
+
+    // JWT feeds: a user's own feed, a center's feed for its manager, anything for an admin.
+    // Checked before etag() so a 304 cannot reveal anything either.
+    @Transactional(readOnly = true)
+    public void checkAccess(Scope scope, Long id) {
+        User actor = getCurrentUser();
+        if (actor.getRole() != null && "ADMIN".equalsIgnoreCase(actor.getRole().getName())) {
+            return;
+        }
+
+        boolean allowed = switch (scope) {
+            case TEACHER, STUDENT -> actor.getId().equals(id);
+            case CENTER -> centerRepository.existsByIdAndManagerId(id, actor.getId());
+        };
+        if (!allowed) {
+            throw new RuntimeException("You do not have access to this calendar.");
+        }
+    }
+
+    // Cheap validator: one aggregate over the scope's courses (id, version, name), no slots.
+    // Slot edits bump calendar_version; enrollments and teacher changes alter the course set.
+    @Transactional(readOnly = true)
+    public String etag(Scope scope, Long id) {
+        String courses = switch (scope) {
+            case TEACHER -> "FROM course c WHERE c.teacher_id = ?";
+            case STUDENT -> "FROM enrollment e JOIN course c ON c.id = e.course_id WHERE e.student_id = ?";
+            case CENTER -> "FROM course c WHERE c.center_id = ?";
+        };
+        String fingerprint = jdbcTemplate.queryForObject(
+                "SELECT md5(coalesce(string_agg(c.id || ':' || coalesce(v.version, 0) || ':' || coalesce(c.name, ''), "
+                        + "',' ORDER BY c.id), '')) "
+                        + courses.replace("WHERE", "LEFT JOIN calendar_version v ON v.course_id = c.id WHERE"),
+                String.class, id);
+
+        String key = FORMAT_VERSION + "|" + timezone + "|" + scope + "|" + id + "|" + fingerprint;
+        return "\"" + sha256(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Called in the writer's transaction whenever slots of these courses change
+    public void touchCourses(Collection<Long> courseIds) {
+        List<Object[]> args = courseIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(courseId -> new Object[] { courseId })
+                .toList();
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO calendar_version (course_id, version) VALUES (?, 1) "
+                    + "ON CONFLICT (course_id) DO UPDATE SET version = calendar_version.version + 1", args);
+        }
+    }
+
+    public void touchCourse(Long courseId) {
+        touchCourses(Collections.singletonList(courseId));
+    }
+
+    // LOCATION of every event held in this classroom changes with it
+    public void touchCoursesInClassroom(Long classroomId) {
+        jdbcTemplate.update("INSERT INTO calendar_version (course_id, version) "
+                + "SELECT DISTINCT s.course_id, 1 FROM class_slot s WHERE s.classroom_id = ? AND s.course_id IS NOT NULL "
+                + "ON CONFLICT (course_id) DO UPDATE SET version = calendar_version.version + 1", classroomId);
+    }
+
+    // ---- Feed tokens ----
+
+    // New token for the current user; replaces (revokes) the previous one.
+    // Only the hash is stored, so the token is shown once.
+    @Transactional
+    public String issueToken() {
+        User user = getCurrentUser();
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        user.setCalendarFeedTokenHash(sha256(token.getBytes(StandardCharsets.UTF_8)));
+        userRepository.save(user);
+        return token;
+    }
+
+    @Transactional
+    public void revokeToken() {
+        User user = getCurrentUser();
+        user.setCalendarFeedTokenHash(null);
+        userRepository.save(user);
+    }
+
+    // Unknown, revoked, disabled or locked -> empty (the controller answers 404)
+    @Transactional(readOnly = true)
+    public Optional<FeedTarget> resolveToken(String token) {
+        if (token == null || token.isBlank() || token.length() > 64) {
+            return Optional.empty();
+        }
+        return userRepository.findByCalendarFeedTokenHash(sha256(token.getBytes(StandardCharsets.UTF_8)))
+                .filter(user -> user.isEnabled() && !user.isLocked())
+                .map(user -> new FeedTarget(
+                        user.getRole() != null && "STUDENT".equalsIgnoreCase(user.getRole().getName())
+                                ? Scope.STUDENT
+                                : Scope.TEACHER,
+                        user.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] build(Scope scope, Long id) {
+        List<Object[]> rows = switch (scope) {
+            case TEACHER -> classSlotRepository.findCalendarRowsByTeacherId(id);
+            case STUDENT -> classSlotRepository.findCalendarRowsByStudentId(id);
+            case CENTER -> classSlotRepository.findCalendarRowsByCenterId(id);
+        };
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + rows.size() * 256);
+        try (Writer out = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+            writeCalendar(out, scope.name().toLowerCase() + "-" + id, rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private void writeCalendar(Writer out, String name, List<Object[]> rows) throws IOException {
+        line(out, "BEGIN:VCALENDAR");
+        line(out, "VERSION:2.0");
+        line(out, "PRODID:-//ExtraCenter//Schedule//EN");
+        line(out, "CALSCALE:GREGORIAN");
+        line(out, "METHOD:PUBLISH");
+        line(out, "X-WR-CALNAME:" + escape("ExtraCenter " + name));
+        line(out, "X-WR-TIMEZONE:" + timezone);
+
+        for (Object[] row : rows) {
+            writeEvent(out, row);
+        }
+
+        line(out, "END:VCALENDAR");
+    }
+
+    // row = id, startDate, endDate, startTime, endTime, dayOfWeek, daysOfWeek, excludedDates,
+    // courseName, classroomLocation
+    @SuppressWarnings("unchecked")
+    private void writeEvent(Writer out, Object[] row) throws IOException {
+        Long slotId = (Long) row[0];
+        LocalDate startDate = (LocalDate) row[1];
+        LocalDate endDate = (LocalDate) row[2];
+        LocalTime startTime = (LocalTime) row[3];
+        LocalTime endTime = (LocalTime) row[4];
+        if (startDate == null || endDate == null || startTime == null || endTime == null) {
+            return;
+        }
+
+        int dayMask = SlotRecurrence.dayMask((Collection<DayOfWeek>) row[6]);
+        if (dayMask == 0 && row[5] != null) {
+            dayMask = SlotRecurrence.bit((DayOfWeek) row[5]);
+        }
+
+        // DTSTART must be an occurrence of the rule: first matching weekday of the range
+        LocalDate first = firstMatching(startDate, endDate, dayMask);
+        if (first == null) {
+            return;
+        }
+
+        line(out, "BEGIN:VEVENT");
+        line(out, "UID:slot-" + slotId + "@extracenter");
+        // Fixed (not "now") so an unchanged calendar renders to the same bytes / ETag
+        line(out, "DTSTAMP:" + DATE.format(startDate) + "T000000Z");
+        line(out, "DTSTART:" + DATE_TIME.format(first.atTime(startTime)));
+        line(out, "DTEND:" + DATE_TIME.format(first.atTime(endTime)));
+
+        if (!first.equals(endDate)) {
+            line(out, "RRULE:FREQ=WEEKLY;BYDAY=" + byDay(dayMask)
+                    + ";UNTIL=" + DATE_TIME.format(endDate.atTime(LocalTime.MAX.withNano(0))));
+
+            Set<LocalDate> excluded = (Set<LocalDate>) row[7];
+            if (excluded != null && !excluded.isEmpty()) {
+                StringJoiner exdates = new StringJoiner(",");
+                for (LocalDate date : excluded) {
+                    if (!date.isBefore(first) && !date.isAfter(endDate)) {
+                        exdates.add(DATE_TIME.format(date.atTime(startTime)));
+                    }
+                }
+                if (exdates.length() > 0) {
+                    line(out, "EXDATE:" + exdates);
+                }
+            }
+        }
+
+        line(out, "SUMMARY:" + escape(row[8] != null ? (String) row[8] : "Class"));
+        if (row[9] != null) {
+            line(out, "LOCATION:" + escape((String) row[9]));
+        }
+        line(out, "END:VEVENT");
+    }
+
+    private static LocalDate firstMatching(LocalDate from, LocalDate to, int dayMask) {
+        if (dayMask == 0) {
+            return null;
+        }
+        for (LocalDate date = from; !date.isAfter(to) && date.isBefore(from.plusDays(7)); date = date.plusDays(1)) {
+            if ((dayMask & SlotRecurrence.bit(date.getDayOfWeek())) != 0) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    private static String byDay(int dayMask) {
+        StringJoiner days = new StringJoiner(",");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((dayMask & SlotRecurrence.bit(day)) != 0) {
+                days.add(day.name().substring(0, 2));
+            }
+        }
+        return days.toString();
+    }
+
+    // TEXT values: backslash, semicolon, comma and newlines must be escaped
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    // Content lines are folded at 75 octets (continuation lines start with a space)
+    private static void line(Writer out, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= 75) {
+            out.write(content);
+            out.write(CRLF);
+            return;
+        }
+
+        int octets = 0;
+        int limit = 75;
+        for (int i = 0; i < content.length();) {
+            int codePoint = content.codePointAt(i);
+            int size = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + size > limit) {
+                out.write(CRLF);
+                out.write(' ');
+                octets = 0;
+                limit = 74;
+            }
+            out.write(Character.toChars(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        out.write(CRLF);
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getName() == null) {
+            throw new RuntimeException("Authentication is required.");
+        }
+
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("Authenticated user not found."));
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
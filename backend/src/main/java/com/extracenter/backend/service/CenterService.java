@@ -4,32 +4,47 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.extracenter.backend.dto.CenterCalendarEntry;
+import com.extracenter.backend.dto.CenterCalendarPage;
+import com.extracenter.backend.dto.CenterClosureRequest;
+import com.extracenter.backend.dto.CenterClosureResponse;
 import com.extracenter.backend.dto.CenterRequest;
 import com.extracenter.backend.dto.ClassSlotOccurrenceOverrideRequest;
 import com.extracenter.backend.dto.ClassSlotRequest;
+import com.extracenter.backend.dto.ClassroomAvailabilityResponse;
 import com.extracenter.backend.dto.ClassroomRequest;
 import com.extracenter.backend.entity.Center;
+import com.extracenter.backend.entity.ClassSession;
 import com.extracenter.backend.entity.ClassSlot;
 import com.extracenter.backend.entity.Classroom;
 import com.extracenter.backend.entity.Course;
+import com.extracenter.backend.entity.ExcludedDatesConverter;
 import com.extracenter.backend.entity.CourseStatus;
 import com.extracenter.backend.entity.Grade;
 import com.extracenter.backend.entity.Subject;
 import com.extracenter.backend.entity.User;
 import com.extracenter.backend.repository.AttendanceRepository;
 import com.extracenter.backend.repository.CenterRepository;
+import com.extracenter.backend.repository.ClassSessionRepository;
 import com.extracenter.backend.repository.ClassSlotRepository;
 import com.extracenter.backend.repository.ClassroomRepository;
 import com.extracenter.backend.repository.CourseRepository;
@@ -37,10 +52,15 @@ import com.extracenter.backend.repository.EnrollmentRepository;
 import com.extracenter.backend.repository.GradeRepository;
 import com.extracenter.backend.repository.SubjectRepository;
 import com.extracenter.backend.repository.UserRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
 
 @Service
 public class CenterService {
 
+    private static final int CALENDAR_DEFAULT_PAGE = 500;
+    private static final int CALENDAR_MAX_PAGE = 2000;
+    private static final int MAX_CLOSURE_DATES = 62;
+
     @Autowired
     private CenterRepository centerRepository;
 
@@ -59,6 +79,27 @@ public class CenterService {
     @Autowired
     private ClassSlotRepository classSlotRepository;
 
+    @Autowired
+    private ClassSessionRepository classSessionRepository;
+
+    @Autowired
+    private ClassSlotConflictIndex classSlotConflictIndex;
+
+    @Autowired
+    private ClassSessionReconciler classSessionReconciler;
+
+    @Autowired
+    private TeacherAvailabilityIndex teacherAvailabilityIndex;
+
+    @Autowired
+    private StudentTimetableIndex studentTimetableIndex;
+
+    @Autowired
+    private CalendarFeedService calendarFeedService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
@@ -404,6 +445,155 @@ public class CenterService {
         return classroomRepository.findByCenterId(centerId);
     }
 
+    // Phòng trống trong khung giờ (trả lời từ bitmap trong ClassSlotConflictIndex, không query slot)
+    public List<ClassroomAvailabilityResponse> findAvailableClassrooms(
+            Long centerId,
+            LocalDate startDate,
+            LocalDate endDate,
+            Set<DayOfWeek> daysOfWeek,
+            LocalTime startTime,
+            LocalTime endTime,
+            Integer minSeat) {
+        getOwnedCenterForCurrentUser(centerId);
+
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date must be on or after start date.");
+        }
+        validateSlotTimes(startTime, endTime);
+
+        // Không truyền thứ -> mọi thứ trong tuần
+        Set<DayOfWeek> days = daysOfWeek == null || daysOfWeek.isEmpty()
+                ? EnumSet.allOf(DayOfWeek.class)
+                : daysOfWeek;
+
+        return classSlotConflictIndex.findFreeClassrooms(
+                centerId, startDate, endDate, days, startTime, endTime, minSeat);
+    }
+
+    // Holiday / closure: exclude the dates from every slot of the center that runs on them and
+    // cancel the matching sessions, all in one transaction.
+    // Slots are read as flat rows and written with one JDBC batch (no entity load per slot);
+    // sessions are cancelled with a single UPDATE.
+    @Transactional
+    public CenterClosureResponse applyClosure(Long centerId, CenterClosureRequest request) {
+        getEditableOwnedCenter(centerId, request.getManagerId());
+
+        if (request.getDates().contains(null)) {
+            throw new RuntimeException("Closure dates must not be empty.");
+        }
+        TreeSet<LocalDate> dates = new TreeSet<>(request.getDates());
+        if (dates.size() > MAX_CLOSURE_DATES) {
+            throw new RuntimeException("A closure can cover at most " + MAX_CLOSURE_DATES + " days.");
+        }
+        LocalDate first = dates.first();
+        LocalDate last = dates.last();
+
+        List<Object[]> updates = new ArrayList<>();
+        Set<Long> courseIds = new HashSet<>();
+        Set<Long> teacherIds = new HashSet<>();
+
+        // Row locks first: the exclusions below are merged in Java and written back whole
+        classSlotRepository.lockClosureSlotIds(centerId, first, last);
+        for (Object[] row : classSlotRepository.findClosureRowsByCenterId(centerId, first, last)) {
+            ClassSlot probe = closureProbe(row);
+            SlotRecurrence recurrence = SlotRecurrence.of(probe);
+
+            Set<LocalDate> excluded = new TreeSet<>(probe.getExcludedDates());
+            for (LocalDate date : dates) {
+                if (recurrence.occursOn(date)) {
+                    excluded.add(date);
+                }
+            }
+            if (excluded.size() == probe.getExcludedDates().size()) {
+                continue;
+            }
+
+            updates.add(new Object[] { ExcludedDatesConverter.pack(excluded), probe.getId() });
+            courseIds.add((Long) row[6]);
+            if (row[7] != null) {
+                teacherIds.add((Long) row[7]);
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE class_slot SET excluded_days = ? WHERE id = ?", updates);
+        }
+
+        String note = request.getNote() == null || request.getNote().isBlank() ? null : request.getNote().trim();
+        int cancelled = classSessionRepository.cancelByCenterIdAndDateIn(centerId, dates, note);
+
+        teacherIds.forEach(teacherAvailabilityIndex::evictTeacher);
+        courseIds.forEach(studentTimetableIndex::evictCourse);
+        calendarFeedService.touchCourses(courseIds);
+
+        return CenterClosureResponse.builder()
+                .dates(new ArrayList<>(dates))
+                .slotsUpdated(updates.size())
+                .sessionsCancelled(cancelled)
+                .build();
+    }
+
+    // Detached ClassSlot carrying just what SlotRecurrence needs (never persisted)
+    @SuppressWarnings("unchecked")
+    private static ClassSlot closureProbe(Object[] row) {
+        ClassSlot probe = new ClassSlot();
+        probe.setId((Long) row[0]);
+        probe.setStartDate((LocalDate) row[1]);
+        probe.setEndDate((LocalDate) row[2]);
+        probe.setDayOfWeek((DayOfWeek) row[3]);
+        probe.setDaysOfWeek((Set<DayOfWeek>) row[4]);
+        probe.setExcludedDates((Set<LocalDate>) row[5]);
+        return probe;
+    }
+
+    // Whole-center calendar, one keyset page at a time (cursor = "date,startTime,id" of the last row)
+    @Transactional(readOnly = true)
+    public CenterCalendarPage getCenterCalendar(
+            Long centerId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String cursor,
+            Integer size) {
+        getOwnedCenterForCurrentUser(centerId);
+
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date must be on or after start date.");
+        }
+
+        int pageSize = size == null ? CALENDAR_DEFAULT_PAGE : Math.max(1, Math.min(size, CALENDAR_MAX_PAGE));
+
+        // Không có cursor -> bắt đầu từ đầu cửa sổ (mọi buổi có date >= startDate)
+        LocalDate afterDate = startDate.minusDays(1);
+        LocalTime afterTime = LocalTime.MAX;
+        Long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(",");
+            try {
+                afterDate = LocalDate.parse(parts[0]);
+                afterTime = LocalTime.parse(parts[1]);
+                afterId = Long.parseLong(parts[2]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid calendar cursor.");
+            }
+        }
+
+        // One extra row tells whether there is a next page
+        List<CenterCalendarEntry> rows = classSessionRepository.findCenterCalendarPage(
+                centerId, endDate, afterDate, afterTime, afterId, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            CenterCalendarEntry last = rows.get(pageSize - 1);
+            nextCursor = last.getDate() + "," + last.getStartTime() + "," + last.getId();
+        }
+
+        return CenterCalendarPage.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional
     public Classroom createClassroom(Long centerId, ClassroomRequest request) {
         Center center = getEditableOwnedCenter(centerId, request.getManagerId());
@@ -414,7 +604,9 @@ public class CenterService {
         classroom.setLastMaintainDate(request.getLastMaintainDate());
         classroom.setCenter(center);
 
-        return classroomRepository.save(classroom);
+        Classroom saved = classroomRepository.save(classroom);
+        classSlotConflictIndex.evict(centerId);
+        return saved;
     }
 
     @Transactional
@@ -424,11 +616,18 @@ public class CenterService {
         Classroom classroom = classroomRepository.findByIdAndCenterId(classroomId, centerId)
                 .orElseThrow(() -> new RuntimeException("Classroom not found in this center."));
 
+        boolean locationChanged = !Objects.equals(classroom.getLocation(), request.getLocation());
         classroom.setSeat(request.getSeat());
         classroom.setLocation(request.getLocation());
         classroom.setLastMaintainDate(request.getLastMaintainDate());
 
-        return classroomRepository.save(classroom);
+        Classroom saved = classroomRepository.save(classroom);
+        classSlotConflictIndex.evict(centerId);
+        if (locationChanged) {
+            // LOCATION of the calendar events held in this room
+            calendarFeedService.touchCoursesInClassroom(classroomId);
+        }
+        return saved;
     }
 
     @Transactional
@@ -443,6 +642,7 @@ public class CenterService {
         }
 
         classroomRepository.delete(classroom);
+        classSlotConflictIndex.evict(centerId);
     }
 
     public List<ClassSlot> getClassSlotsByCenter(Long centerId) {
@@ -520,6 +720,8 @@ public class CenterService {
             course.setInvitationStatus("ACCEPTED");
         }
         courseRepository.saveAll(teacherCourses);
+        teacherAvailabilityIndex.evictTeacher(teacherId);
+        teacherAvailabilityIndex.evictTeacher(center.getManager().getId());
 
         userRepository.save(teacher);
     }
@@ -548,6 +750,7 @@ public class CenterService {
             request.getStartTime(),
             request.getEndTime(),
             request.getDaysOfWeek(),
+            course.getTeacher() != null ? course.getTeacher().getId() : null,
             null);
 
         ClassSlot slot = new ClassSlot();
@@ -561,14 +764,20 @@ public class CenterService {
         slot.setDaysOfWeek(request.getDaysOfWeek());
         slot.setIsRecurring(Boolean.TRUE.equals(request.getRecurring()) || request.getRecurring() == null);
 
-        return classSlotRepository.save(slot);
+        ClassSlot saved = classSlotRepository.save(slot);
+        classSlotConflictIndex.slotSaved(saved);
+        teacherAvailabilityIndex.evictTeacher(teacherIdOf(saved));
+        studentTimetableIndex.evictCourse(course.getId());
+        calendarFeedService.touchCourse(course.getId());
+        classSessionReconciler.reconcile(saved, saved.getStartDate(), saved.getEndDate());
+        return saved;
     }
 
     @Transactional
     public ClassSlot updateClassSlot(Long centerId, Long slotId, ClassSlotRequest request) {
         getEditableOwnedCenter(centerId, request.getManagerId());
 
-        ClassSlot slot = classSlotRepository.findByIdAndCenterId(slotId, centerId)
+        ClassSlot slot = classSlotRepository.findByIdAndCenterIdForUpdate(slotId, centerId)
                 .orElseThrow(() -> new RuntimeException("ClassSlot not found in this center."));
 
         Course course = courseRepository.findById(request.getCourseId())
@@ -591,8 +800,15 @@ public class CenterService {
             request.getStartTime(),
             request.getEndTime(),
             request.getDaysOfWeek(),
+            course.getTeacher() != null ? course.getTeacher().getId() : null,
             slotId);
 
+        // Cửa sổ cần đồng bộ lại = khoảng ngày cũ + khoảng ngày mới
+        LocalDate previousStart = slot.getStartDate();
+        LocalDate previousEnd = slot.getEndDate();
+        Long previousTeacherId = teacherIdOf(slot);
+        Long previousCourseId = slot.getCourse().getId();
+
         slot.setCourse(course);
         slot.setClassroom(classroom);
         slot.setStartDate(course.getStartDate());
@@ -602,7 +818,18 @@ public class CenterService {
         slot.setDaysOfWeek(request.getDaysOfWeek());
         slot.setIsRecurring(Boolean.TRUE.equals(request.getRecurring()) || request.getRecurring() == null);
 
-        return classSlotRepository.save(slot);
+        ClassSlot saved = classSlotRepository.save(slot);
+        classSlotConflictIndex.slotSaved(saved);
+        teacherAvailabilityIndex.evictTeacher(previousTeacherId);
+        teacherAvailabilityIndex.evictTeacher(teacherIdOf(saved));
+        studentTimetableIndex.evictCourse(previousCourseId);
+        studentTimetableIndex.evictCourse(course.getId());
+        calendarFeedService.touchCourses(Arrays.asList(previousCourseId, course.getId()));
+        // Old and new range together; the reconciler itself never goes before today
+        classSessionReconciler.reconcile(saved,
+                earliest(previousStart, saved.getStartDate()),
+                latest(previousEnd, saved.getEndDate()));
+        return saved;
     }
 
     @Transactional
@@ -613,14 +840,19 @@ public class CenterService {
                 .orElseThrow(() -> new RuntimeException("ClassSlot not found in this center."));
 
         attendanceRepository.deleteByClassSlotId(slotId);
+        classSessionRepository.unlinkFromClassSlot(slotId);
         classSlotRepository.delete(slot);
+        classSlotConflictIndex.slotDeleted(centerId, slotId);
+        teacherAvailabilityIndex.evictTeacher(teacherIdOf(slot));
+        studentTimetableIndex.evictCourse(slot.getCourse().getId());
+        calendarFeedService.touchCourse(slot.getCourse().getId());
     }
 
     @Transactional
     public void deleteClassSlotOccurrence(Long centerId, Long slotId, LocalDate date, Long managerId) {
         getEditableOwnedCenter(centerId, managerId);
 
-        ClassSlot slot = classSlotRepository.findByIdAndCenterId(slotId, centerId)
+        ClassSlot slot = classSlotRepository.findByIdAndCenterIdForUpdate(slotId, centerId)
                 .orElseThrow(() -> new RuntimeException("ClassSlot not found in this center."));
 
         if (!isDateWithinRange(date, slot.getStartDate(), slot.getEndDate())) {
@@ -631,12 +863,14 @@ public class CenterService {
             throw new RuntimeException("This class slot does not run on the selected date.");
         }
 
-        if (slot.getExcludedDates() == null) {
-            slot.setExcludedDates(new HashSet<>());
-        }
+        excludeDate(slot, date);
+        ClassSlot saved = classSlotRepository.save(slot);
+        teacherAvailabilityIndex.evictTeacher(teacherIdOf(saved));
+        studentTimetableIndex.evictCourse(saved.getCourse().getId());
+        calendarFeedService.touchCourse(saved.getCourse().getId());
 
-        slot.getExcludedDates().add(date);
-        classSlotRepository.save(slot);
+        // Buổi học của ngày bị hủy: xóa nếu chưa có điểm danh/tài liệu, ngược lại chỉ bỏ liên kết
+        classSessionReconciler.reconcile(saved, date, date);
     }
 
     @Transactional
@@ -648,7 +882,7 @@ public class CenterService {
 
         getEditableOwnedCenter(centerId, request.getManagerId());
 
-        ClassSlot slot = classSlotRepository.findByIdAndCenterId(slotId, centerId)
+        ClassSlot slot = classSlotRepository.findByIdAndCenterIdForUpdate(slotId, centerId)
                 .orElseThrow(() -> new RuntimeException("ClassSlot not found in this center."));
 
         if (!isDateWithinRange(date, slot.getStartDate(), slot.getEndDate())) {
@@ -676,12 +910,10 @@ public class CenterService {
                 request.getStartTime(),
                 request.getEndTime(),
                 singleDay,
+                teacherIdOf(slot),
                 slotId);
 
-        if (slot.getExcludedDates() == null) {
-            slot.setExcludedDates(new HashSet<>());
-        }
-        slot.getExcludedDates().add(date);
+        excludeDate(slot, date);
         classSlotRepository.save(slot);
 
         ClassSlot overrideSlot = new ClassSlot();
@@ -695,7 +927,20 @@ public class CenterService {
         overrideSlot.setDaysOfWeek(singleDay);
         overrideSlot.setIsRecurring(false);
 
-        return classSlotRepository.save(overrideSlot);
+        ClassSlot savedOverride = classSlotRepository.save(overrideSlot);
+        classSlotConflictIndex.slotSaved(savedOverride);
+        teacherAvailabilityIndex.evictTeacher(teacherIdOf(savedOverride));
+        studentTimetableIndex.evictCourse(savedOverride.getCourse().getId());
+        calendarFeedService.touchCourse(savedOverride.getCourse().getId());
+
+        // Buổi học của ngày đó chuyển sang slot override (giữ nguyên id + điểm danh)
+        for (ClassSession session : classSessionRepository.findByClassSlotIdAndDate(slotId, date)) {
+            session.setClassSlot(savedOverride);
+            session.setStartTime(savedOverride.getStartTime());
+            session.setEndTime(savedOverride.getEndTime());
+        }
+
+        return savedOverride;
     }
 
     private void validateSlotTimes(LocalTime startTime, LocalTime endTime) {
@@ -722,59 +967,47 @@ public class CenterService {
             LocalTime requestStartTime,
             LocalTime requestEndTime,
             Set<DayOfWeek> requestDays,
+            Long teacherId,
             Long excludeSlotId) {
 
-        List<ClassSlot> existingSlots = classSlotRepository.findByCenterId(centerId);
-
-        for (ClassSlot existing : existingSlots) {
-            if (excludeSlotId != null && excludeSlotId.equals(existing.getId())) {
-                continue;
-            }
-
-            if (!dateRangesOverlap(requestStartDate, requestEndDate, existing.getStartDate(), existing.getEndDate())) {
-                continue;
-            }
-
-            if (!daySetsOverlap(requestDays, getEffectiveDays(existing))) {
-                continue;
-            }
-
-            if (!timeRangesOverlap(requestStartTime, requestEndTime, existing.getStartTime(), existing.getEndTime())) {
-                continue;
-            }
-
-            Long existingCourseId = existing.getCourse() != null ? existing.getCourse().getId() : null;
-            Long existingClassroomId = existing.getClassroom() != null ? existing.getClassroom().getId() : null;
-
-            if (requestCourseId != null && requestCourseId.equals(existingCourseId)) {
-                throw new RuntimeException("This course already has another class slot at the same time.");
-            }
-
-            if (requestClassroomId != null && requestClassroomId.equals(existingClassroomId)) {
-                throw new RuntimeException("This classroom is already occupied at the selected time.");
-            }
+        ClassSlotConflictIndex.Conflict conflict = classSlotConflictIndex.findConflict(
+                centerId,
+                requestCourseId,
+                requestClassroomId,
+                requestStartDate,
+                requestEndDate,
+                requestDays,
+                requestStartTime,
+                requestEndTime,
+                excludeSlotId);
+
+        if (conflict == ClassSlotConflictIndex.Conflict.COURSE) {
+            throw new RuntimeException("This course already has another class slot at the same time.");
         }
-    }
 
-    private boolean timeRangesOverlap(LocalTime startA, LocalTime endA, LocalTime startB, LocalTime endB) {
-        return startA.isBefore(endB) && startB.isBefore(endA);
-    }
-
-    private boolean dateRangesOverlap(LocalDate startA, LocalDate endA, LocalDate startB, LocalDate endB) {
-        return !endA.isBefore(startB) && !endB.isBefore(startA);
-    }
-
-    private boolean daySetsOverlap(Set<DayOfWeek> daysA, Set<DayOfWeek> daysB) {
-        if (daysA == null || daysA.isEmpty() || daysB == null || daysB.isEmpty()) {
-            return false;
+        if (conflict == ClassSlotConflictIndex.Conflict.CLASSROOM) {
+            throw new RuntimeException("This classroom is already occupied at the selected time.");
         }
 
-        for (DayOfWeek day : daysA) {
-            if (daysB.contains(day)) {
-                return true;
-            }
+        // Giáo viên dạy ở nhiều trung tâm: kiểm tra trùng lịch trên tất cả các trung tâm
+        Long clashSlotId = teacherAvailabilityIndex.findClash(
+                teacherId,
+                requestStartDate,
+                requestEndDate,
+                requestDays,
+                requestStartTime,
+                requestEndTime,
+                excludeSlotId,
+                null);
+
+        if (clashSlotId != null) {
+            throw new RuntimeException("The teacher of this course is already teaching another class at the selected time.");
         }
-        return false;
+    }
+
+    private Long teacherIdOf(ClassSlot slot) {
+        Course course = slot.getCourse();
+        return course != null && course.getTeacher() != null ? course.getTeacher().getId() : null;
     }
 
     private boolean isDateWithinRange(LocalDate date, LocalDate startDate, LocalDate endDate) {
@@ -782,27 +1015,23 @@ public class CenterService {
                 && !date.isBefore(startDate) && !date.isAfter(endDate);
     }
 
-    private boolean isSlotScheduledOnDate(ClassSlot slot, LocalDate date) {
-        Set<DayOfWeek> days = getEffectiveDays(slot);
-        if (!days.contains(date.getDayOfWeek())) {
-            return false;
-        }
-
-        Set<LocalDate> excludedDates = slot.getExcludedDates();
-        return excludedDates == null || !excludedDates.contains(date);
+    // excludedDates is an immutable value (stored packed in one column): replace it, never mutate it
+    private void excludeDate(ClassSlot slot, LocalDate date) {
+        Set<LocalDate> excluded = new HashSet<>(slot.getExcludedDates());
+        excluded.add(date);
+        slot.setExcludedDates(excluded);
     }
 
-    private Set<DayOfWeek> getEffectiveDays(ClassSlot slot) {
-        Set<DayOfWeek> effectiveDays = new HashSet<>();
-
-        if (slot.getDaysOfWeek() != null) {
-            effectiveDays.addAll(slot.getDaysOfWeek());
-        }
+    private LocalDate earliest(LocalDate a, LocalDate b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
 
-        if (slot.getDayOfWeek() != null) {
-            effectiveDays.add(slot.getDayOfWeek());
-        }
+    private LocalDate latest(LocalDate a, LocalDate b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
 
-        return effectiveDays;
+    private boolean isSlotScheduledOnDate(ClassSlot slot, LocalDate date) {
+        SlotRecurrence recurrence = SlotRecurrence.of(slot);
+        return recurrence.runsOnWeekday(date.getDayOfWeek()) && !recurrence.isExcluded(date);
     }
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.extracenter.backend.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.extracenter.backend.entity.ClassSession;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.repository.ClassSessionRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// Brings the ClassSession rows of one slot in line with its (new) definition,
+// touching only the dates inside the given window, clamped to today onwards: sessions that
+// already happened (and their attendance) are never retimed, moved or deleted.
+// Callers can therefore pass a slot's whole range; the cost follows the remaining term.
+// - a session whose date still occurs is kept (same id, attendance untouched); its time is moved if it changed
+// - a missing occurrence re-links a legacy unlinked session with the same date/time, or
+//   takes over a session of the same week that no longer occurs (weekday change), or is inserted
+// - a session that no longer occurs and was not moved is deleted, or only unlinked when it
+//   already has attendance / materials / assignments attached
+// - CANCELLED sessions that no longer occur are left exactly as they are
+@Component
+public class ClassSessionReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassSessionReconciler.class);
+
+    private static final String CANCELLED = "CANCELLED";
+
+    @Autowired
+    private ClassSessionRepository classSessionRepository;
+
+    // Source of "today" (replaced in tests)
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Transactional
+    public void reconcile(ClassSlot slot, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now(clock);
+        if (from != null && from.isBefore(today)) {
+            from = today;
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            return;
+        }
+
+        // 1. Target dates of the new definition inside the window
+        Set<LocalDate> targetDates = new LinkedHashSet<>();
+        if (slot.getCourse() != null && slot.getStartTime() != null && slot.getEndTime() != null) {
+            for (LocalDate date : SlotRecurrence.of(slot).occurrences(from, to)) {
+                targetDates.add(date);
+            }
+        }
+
+        Long courseId = slot.getCourse() != null ? slot.getCourse().getId() : null;
+        List<ClassSession> toSave = new ArrayList<>();
+        List<ClassSession> stale = new ArrayList<>();
+
+        // 2. Diff the sessions currently linked to this slot against the targets
+        Set<LocalDate> covered = new HashSet<>();
+        for (ClassSession session : classSessionRepository.findByClassSlotIdAndDateBetween(slot.getId(), from, to)) {
+            boolean sameCourse = courseId != null && courseId.equals(session.getCourse().getId());
+            if (!sameCourse || !targetDates.contains(session.getDate()) || !covered.add(session.getDate())) {
+                // Cancelled sessions (center closures, cancelled occurrences) are records of a
+                // day that did not happen: never moved onto a class day or deleted with their note
+                if (!CANCELLED.equals(session.getStatus())) {
+                    stale.add(session);
+                }
+                continue;
+            }
+
+            if (!slot.getStartTime().equals(session.getStartTime()) || !slot.getEndTime().equals(session.getEndTime())) {
+                session.setStartTime(slot.getStartTime());
+                session.setEndTime(slot.getEndTime());
+                toSave.add(session);
+            }
+        }
+
+        // 3. Missing occurrences: re-link a matching unlinked session first
+        List<LocalDate> missing = new ArrayList<>();
+        for (LocalDate date : targetDates) {
+            if (!covered.contains(date)) {
+                missing.add(date);
+            }
+        }
+
+        List<LocalDate> stillMissing = new ArrayList<>();
+        if (!missing.isEmpty()) {
+            Map<LocalDate, ClassSession> unlinkedByDate = new HashMap<>();
+            for (ClassSession legacy : classSessionRepository.findByCourseIdAndClassSlotIsNullAndDateBetween(
+                    courseId, missing.get(0), missing.get(missing.size() - 1))) {
+                if (slot.getStartTime().equals(legacy.getStartTime()) && slot.getEndTime().equals(legacy.getEndTime())) {
+                    unlinkedByDate.putIfAbsent(legacy.getDate(), legacy);
+                }
+            }
+
+            for (LocalDate date : missing) {
+                ClassSession legacy = unlinkedByDate.get(date);
+                if (legacy == null) {
+                    stillMissing.add(date);
+                    continue;
+                }
+                legacy.setClassSlot(slot);
+                toSave.add(legacy);
+            }
+        }
+
+        Set<Long> referenced = new HashSet<>();
+        if (!stale.isEmpty()) {
+            List<Long> staleIds = new ArrayList<>(stale.size());
+            for (ClassSession session : stale) {
+                staleIds.add(session.getId());
+            }
+            referenced.addAll(classSessionRepository.findReferencedIds(staleIds));
+        }
+
+        // 4. Weekday change: a stale session takes a missing date of the same week (Mon-Sun),
+        // keeping its id, attendance and notes. Sessions with history are placed first.
+        Map<Long, Deque<LocalDate>> missingByWeek = new HashMap<>();
+        for (LocalDate date : stillMissing) {
+            missingByWeek.computeIfAbsent(week(date), w -> new ArrayDeque<>()).add(date);
+        }
+
+        List<ClassSession> leftover = new ArrayList<>();
+        if (!missingByWeek.isEmpty()) {
+            stale.sort(Comparator.comparing((ClassSession session) -> !referenced.contains(session.getId()))
+                    .thenComparing(ClassSession::getDate));
+        }
+        for (ClassSession session : stale) {
+            Deque<LocalDate> freeDates = courseId != null && courseId.equals(session.getCourse().getId())
+                    ? missingByWeek.get(week(session.getDate()))
+                    : null;
+            if (freeDates == null || freeDates.isEmpty()) {
+                leftover.add(session);
+                continue;
+            }
+
+            session.setDate(freeDates.poll());
+            session.setStartTime(slot.getStartTime());
+            session.setEndTime(slot.getEndTime());
+            toSave.add(session);
+        }
+
+        // Whatever no session moved into is created
+        for (LocalDate date : stillMissing) {
+            Deque<LocalDate> freeDates = missingByWeek.get(week(date));
+            if (!freeDates.remove(date)) {
+                continue;
+            }
+
+            ClassSession session = new ClassSession();
+            session.setCourse(slot.getCourse());
+            session.setClassSlot(slot);
+            session.setDate(date);
+            session.setStartTime(slot.getStartTime());
+            session.setEndTime(slot.getEndTime());
+            session.setStatus("SCHEDULED");
+            toSave.add(session);
+        }
+
+        // 5. Sessions that no longer occur: delete, unless they already have history
+        List<Long> toDelete = new ArrayList<>();
+        for (ClassSession session : leftover) {
+            if (referenced.contains(session.getId())) {
+                session.setClassSlot(null);
+                toSave.add(session);
+            } else {
+                toDelete.add(session.getId());
+            }
+        }
+
+        // 6. Apply in batches
+        if (!toSave.isEmpty()) {
+            classSessionRepository.saveAll(toSave);
+        }
+        if (!toDelete.isEmpty()) {
+            classSessionRepository.deleteAllByIdInBatch(toDelete);
+        }
+
+        logger.debug("Reconciled slot {} in [{}, {}]: {} saved, {} deleted",
+                slot.getId(), from, to, toSave.size(), toDelete.size());
+    }
+
+    // Monday-based week number (epoch day 0 was a Thursday)
+    private static long week(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay() + 3, 7L);
+    }
+}
@@ -1,8 +1,15 @@
 package com.extracenter.backend.service;
 
+import com.extracenter.backend.dto.UpcomingSessionResponse;
 import com.extracenter.backend.entity.ClassSession;
+import com.extracenter.backend.entity.User;
 import com.extracenter.backend.repository.ClassSessionRepository;
+import com.extracenter.backend.repository.EnrollmentRepository;
+import com.extracenter.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,9 +21,17 @@ import java.util.List;
 @Service
 public class ClassSessionService {
 
+    private static final int MAX_UPCOMING = 50;
+
     @Autowired
     private ClassSessionRepository classSessionRepository;
 
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
     // 1. Get schedule for a STUDENT within a specific week/month
     public List<ClassSession> getStudentSchedule(Long studentId, LocalDate startDate, LocalDate endDate) {
         return classSessionRepository.findByStudentIdAndDateRange(studentId, startDate, endDate);
@@ -55,8 +70,31 @@ public class ClassSessionService {
         classSessionRepository.deleteById(sessionId);
     }
 
-    public List<ClassSession> getUpcomingByStudent(Long studentId) {
-        // Lấy thời gian hiện tại để so sánh
-        return classSessionRepository.findUpcomingSessionsByStudentId(studentId, LocalDateTime.now());
+    // 6. Next N sessions of a student (mobile home screen)
+    // Visible to the student, an admin, or a teacher / center manager of one of the student's courses
+    @Transactional(readOnly = true)
+    public List<UpcomingSessionResponse> getUpcomingByStudent(Long studentId, int limit) {
+        User actor = getCurrentUser();
+        boolean isAdmin = actor.getRole() != null && "ADMIN".equalsIgnoreCase(actor.getRole().getName());
+        if (!isAdmin && !actor.getId().equals(studentId)
+                && !enrollmentRepository.existsByStudentIdAndCourseStaffId(studentId, actor.getId())) {
+            throw new RuntimeException("You do not have permission to view this student's schedule.");
+        }
+
+        int size = Math.max(1, Math.min(limit, MAX_UPCOMING));
+        // Lấy thời gian hiện tại để so sánh (ngày + giờ bắt đầu)
+        LocalDateTime now = LocalDateTime.now();
+        return classSessionRepository.findUpcomingByStudentId(
+                studentId, now.toLocalDate(), now.toLocalTime(), PageRequest.of(0, size));
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getName() == null) {
+            throw new RuntimeException("Authentication is required.");
+        }
+
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("Authenticated user not found."));
     }
 }
\ No newline at end of file
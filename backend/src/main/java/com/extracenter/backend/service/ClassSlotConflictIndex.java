@@ -0,0 +1,405 @@
+package com.extracenter.backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.extracenter.backend.dto.ClassroomAvailabilityResponse;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.repository.ClassroomRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// In-memory conflict index per center: slots grouped by classroom and by course,
+// each list sorted by start date. A conflict check only walks the candidate
+// lists of the requested classroom/course instead of every slot in the center.
+// Writes are applied after commit; a center is rebuilt from the DB on first use
+// (or after a rollback evicts it).
+// Each classroom also keeps a weekday x 30-minute occupancy bitmap (one long per weekday,
+// 48 cells), so the free-room finder only does the per-slot date check for rooms whose cells collide.
+// Only slots that have not ended yet are marked (re-marked lazily when the day changes), so ended
+// terms don't saturate the bitmaps; probes starting in the past skip the bitmap and scan exactly.
+@Component
+public class ClassSlotConflictIndex {
+
+    public enum Conflict {
+        COURSE, CLASSROOM
+    }
+
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    private final Map<Long, CenterIndex> centers = new ConcurrentHashMap<>();
+
+    // Bumped on every write so a rebuild racing with a commit is not installed stale
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public Conflict findConflict(
+            Long centerId,
+            Long courseId,
+            Long classroomId,
+            LocalDate startDate,
+            LocalDate endDate,
+            Collection<DayOfWeek> days,
+            LocalTime startTime,
+            LocalTime endTime,
+            Long excludeSlotId) {
+
+        int dayMask = SlotRecurrence.dayMask(days);
+        if (dayMask == 0) {
+            return null;
+        }
+
+        Entry probe = new Entry(excludeSlotId, courseId, classroomId,
+                startDate.toEpochDay(), endDate.toEpochDay(), dayMask, toMinute(startTime), toMinute(endTime));
+
+        CenterIndex index = getOrBuild(centerId);
+        if (courseId != null && index.overlaps(index.byCourse, courseId, probe)) {
+            return Conflict.COURSE;
+        }
+        if (classroomId != null && index.overlaps(index.byClassroom, classroomId, probe)) {
+            return Conflict.CLASSROOM;
+        }
+        return null;
+    }
+
+    // Classrooms with at least minSeat seats and no slot overlapping the requested window
+    public List<ClassroomAvailabilityResponse> findFreeClassrooms(
+            Long centerId,
+            LocalDate startDate,
+            LocalDate endDate,
+            Collection<DayOfWeek> days,
+            LocalTime startTime,
+            LocalTime endTime,
+            Integer minSeat) {
+
+        int dayMask = SlotRecurrence.dayMask(days);
+        Entry probe = new Entry(null, null, null,
+                startDate.toEpochDay(), endDate.toEpochDay(), dayMask, toMinute(startTime), toMinute(endTime));
+        long cells = cellMask(probe.startMinute, probe.endMinute);
+
+        return getOrBuild(centerId).freeRooms(probe, cells, minSeat != null ? minSeat : 0);
+    }
+
+    // Register (or replace) a slot once the surrounding transaction commits
+    public void slotSaved(ClassSlot slot) {
+        Long centerId = slot.getCenter().getId();
+        Entry entry = Entry.of(slot);
+        afterCompletion(centerId, index -> index.put(entry));
+    }
+
+    public void slotDeleted(Long centerId, Long slotId) {
+        afterCompletion(centerId, index -> index.remove(slotId));
+    }
+
+    // Bulk changes (course deletion...) just drop the center; next check rebuilds it
+    public void evict(Long centerId) {
+        afterCompletion(centerId, null);
+    }
+
+    public void rebuild(Long centerId) {
+        centers.remove(centerId);
+        getOrBuild(centerId);
+    }
+
+    private CenterIndex getOrBuild(Long centerId) {
+        CenterIndex index = centers.get(centerId);
+        if (index != null) {
+            return index;
+        }
+
+        long version = versionOf(centerId).get();
+        CenterIndex built = load(centerId);
+        if (versionOf(centerId).get() == version) {
+            CenterIndex existing = centers.putIfAbsent(centerId, built);
+            return existing != null ? existing : built;
+        }
+        // A write committed while loading: use this snapshot once but don't cache it
+        return built;
+    }
+
+    private CenterIndex load(Long centerId) {
+        CenterIndex index = new CenterIndex();
+        for (Object[] row : classroomRepository.findRoomRowsByCenterId(centerId)) {
+            index.rooms.put((Long) row[0], new Room((Long) row[0], (Integer) row[1], (String) row[2]));
+        }
+
+        for (Object[] row : classSlotRepository.findConflictRowsByCenterId(centerId)) {
+            Long slotId = (Long) row[0];
+            LocalDate start = (LocalDate) row[3];
+            LocalDate end = (LocalDate) row[4];
+            LocalTime startTime = (LocalTime) row[5];
+            LocalTime endTime = (LocalTime) row[6];
+            if (start == null || end == null || startTime == null || endTime == null) {
+                continue;
+            }
+
+            // Same rule as SlotRecurrence.effectiveDayMask: legacy column only when the set is empty
+            @SuppressWarnings("unchecked")
+            int mask = SlotRecurrence.dayMask((Collection<DayOfWeek>) row[8]);
+            if (mask == 0 && row[7] != null) {
+                mask = SlotRecurrence.bit((DayOfWeek) row[7]);
+            }
+
+            index.put(new Entry(slotId, (Long) row[1], (Long) row[2], start.toEpochDay(), end.toEpochDay(),
+                    mask, toMinute(startTime), toMinute(endTime)));
+        }
+        return index;
+    }
+
+    private void afterCompletion(Long centerId, Consumer<CenterIndex> change) {
+        Runnable apply = () -> {
+            versionOf(centerId).incrementAndGet();
+            CenterIndex index = centers.get(centerId);
+            if (index == null) {
+                return;
+            }
+            if (change == null) {
+                centers.remove(centerId);
+            } else {
+                change.accept(index);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    apply.run();
+                } else {
+                    versionOf(centerId).incrementAndGet();
+                    centers.remove(centerId);
+                }
+            }
+        });
+    }
+
+    private AtomicLong versionOf(Long centerId) {
+        return versions.computeIfAbsent(centerId, id -> new AtomicLong());
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    // 30-minute cells [start, end) of one day as bits 0..47; off-grid times round outwards
+    private static long cellMask(int startMinute, int endMinute) {
+        int first = Math.max(0, startMinute / 30);
+        int last = Math.min(48, (endMinute + 29) / 30);
+        if (last <= first) {
+            return 0L;
+        }
+        return ((1L << (last - first)) - 1) << first;
+    }
+
+    private static final class Room {
+        private final Long id;
+        private final int seat;
+        private final String location;
+        // weekCells[weekday] = union of the cells any slot of this room uses on that weekday
+        private final long[] weekCells = new long[7];
+
+        private Room(Long id, Integer seat, String location) {
+            this.id = id;
+            this.seat = seat != null ? seat : 0;
+            this.location = location;
+        }
+
+        // Slots that ended before fromDay are left out of the bitmap
+        private void mark(Entry entry, long fromDay) {
+            if (entry.endDay < fromDay) {
+                return;
+            }
+            long cells = cellMask(entry.startMinute, entry.endMinute);
+            for (int day = 0; day < 7; day++) {
+                if ((entry.dayMask & (1 << day)) != 0) {
+                    weekCells[day] |= cells;
+                }
+            }
+        }
+
+        private boolean collides(int dayMask, long cells) {
+            for (int day = 0; day < 7; day++) {
+                if ((dayMask & (1 << day)) != 0 && (weekCells[day] & cells) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private final Long slotId;
+        private final Long courseId;
+        private final Long classroomId;
+        private final long startDay;
+        private final long endDay;
+        private final int dayMask;
+        private final int startMinute;
+        private final int endMinute;
+
+        private Entry(Long slotId, Long courseId, Long classroomId, long startDay, long endDay,
+                int dayMask, int startMinute, int endMinute) {
+            this.slotId = slotId;
+            this.courseId = courseId;
+            this.classroomId = classroomId;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.dayMask = dayMask;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        private static Entry of(ClassSlot slot) {
+            return new Entry(
+                    slot.getId(),
+                    slot.getCourse() != null ? slot.getCourse().getId() : null,
+                    slot.getClassroom() != null ? slot.getClassroom().getId() : null,
+                    slot.getStartDate().toEpochDay(),
+                    slot.getEndDate().toEpochDay(),
+                    SlotRecurrence.effectiveDayMask(slot),
+                    toMinute(slot.getStartTime()),
+                    toMinute(slot.getEndTime()));
+        }
+    }
+
+    private static final class CenterIndex {
+        private static final Comparator<Entry> BY_START = Comparator.comparingLong(entry -> entry.startDay);
+
+        private final Map<Long, Entry> bySlot = new HashMap<>();
+        private final Map<Long, List<Entry>> byCourse = new HashMap<>();
+        private final Map<Long, List<Entry>> byClassroom = new HashMap<>();
+        private final Map<Long, Room> rooms = new TreeMap<>();
+        // Day the room bitmaps were marked for
+        private long bitmapDay = LocalDate.now().toEpochDay();
+
+        private synchronized void put(Entry entry) {
+            remove(entry.slotId);
+            bySlot.put(entry.slotId, entry);
+            if (entry.courseId != null) {
+                insertSorted(byCourse.computeIfAbsent(entry.courseId, id -> new ArrayList<>()), entry);
+            }
+            if (entry.classroomId != null) {
+                insertSorted(byClassroom.computeIfAbsent(entry.classroomId, id -> new ArrayList<>()), entry);
+                Room room = rooms.get(entry.classroomId);
+                if (room != null) {
+                    room.mark(entry, bitmapDay);
+                }
+            }
+        }
+
+        private synchronized void remove(Long slotId) {
+            Entry old = bySlot.remove(slotId);
+            if (old == null) {
+                return;
+            }
+            if (old.courseId != null && byCourse.containsKey(old.courseId)) {
+                byCourse.get(old.courseId).remove(old);
+            }
+            if (old.classroomId != null && byClassroom.containsKey(old.classroomId)) {
+                byClassroom.get(old.classroomId).remove(old);
+
+                // Bits can't be un-OR'ed: rebuild this room's bitmap from its remaining slots
+                Room room = rooms.get(old.classroomId);
+                if (room != null) {
+                    remark(room);
+                }
+            }
+        }
+
+        private void remark(Room room) {
+            Arrays.fill(room.weekCells, 0L);
+            for (Entry entry : byClassroom.getOrDefault(room.id, List.of())) {
+                room.mark(entry, bitmapDay);
+            }
+        }
+
+        // Bitmap miss = free for sure; a hit is only a candidate conflict (the slot may lie
+        // outside the requested dates), so those rooms get the exact sorted-list check
+        private synchronized List<ClassroomAvailabilityResponse> freeRooms(Entry probe, long cells, int minSeat) {
+            List<ClassroomAvailabilityResponse> free = new ArrayList<>();
+            if (probe.dayMask == 0 || cells == 0) {
+                return free;
+            }
+
+            // New day: drop the slots that ended yesterday from the bitmaps
+            long today = LocalDate.now().toEpochDay();
+            if (today != bitmapDay) {
+                bitmapDay = today;
+                rooms.values().forEach(this::remark);
+            }
+            // The bitmap only knows slots running from bitmapDay on
+            boolean useBitmap = probe.startDay >= bitmapDay;
+
+            for (Room room : rooms.values()) {
+                if (room.seat < minSeat) {
+                    continue;
+                }
+                if ((!useBitmap || room.collides(probe.dayMask, cells)) && overlaps(byClassroom, room.id, probe)) {
+                    continue;
+                }
+                free.add(ClassroomAvailabilityResponse.builder()
+                        .id(room.id)
+                        .location(room.location)
+                        .seat(room.seat)
+                        .build());
+            }
+            return free;
+        }
+
+        // Candidates are sorted by start date, so stop once they begin after the probe ends
+        private synchronized boolean overlaps(Map<Long, List<Entry>> lists, Long key, Entry probe) {
+            List<Entry> candidates = lists.get(key);
+            if (candidates == null) {
+                return false;
+            }
+            for (Entry entry : candidates) {
+                if (entry.startDay > probe.endDay) {
+                    break;
+                }
+                if (probe.slotId != null && probe.slotId.equals(entry.slotId)) {
+                    continue;
+                }
+                if (entry.endDay < probe.startDay || (entry.dayMask & probe.dayMask) == 0) {
+                    continue;
+                }
+                if (entry.startMinute < probe.endMinute && probe.startMinute < entry.endMinute) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void insertSorted(List<Entry> list, Entry entry) {
+            int position = 0;
+            while (position < list.size() && BY_START.compare(list.get(position), entry) <= 0) {
+                position++;
+            }
+            list.add(position, entry);
+        }
+    }
+}
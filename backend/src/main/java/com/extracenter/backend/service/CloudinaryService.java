@@ -3,19 +3,29 @@ package com.extracenter.backend.service;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "storage.provider", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements FileStorageService {
 
     @Autowired
     private Cloudinary cloudinary;
 
+    @Override
     public String uploadFile(MultipartFile file) throws IOException {
+        Path tempDir = null;
+        File tempFile = null;
         try {
             // 1. Phân loại file thông minh
             String contentType = file.getContentType();
@@ -33,8 +43,14 @@ public class CloudinaryService {
                 resourceType = "raw";
             }
 
-            // 2. Upload lên Cloudinary (Bổ sung cờ giữ nguyên tên file)
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(),
+            // 2. Không dùng file.getBytes(): chuyển multipart (đã nằm trên đĩa) sang file tạm
+            // mang tên gốc, rồi để HTTP client stream từ đĩa với buffer nhỏ cố định
+            tempDir = Files.createTempDirectory("ecm-upload-");
+            tempFile = tempDir.resolve(safeFileName(file.getOriginalFilename())).toFile();
+            file.transferTo(tempFile);
+
+            // 3. Upload lên Cloudinary (Bổ sung cờ giữ nguyên tên file)
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(tempFile,
                     ObjectUtils.asMap(
                             "resource_type", resourceType,
                             "folder", "extracenter_materials",
@@ -42,11 +58,54 @@ public class CloudinaryService {
                             "unique_filename", true // Thêm một đoạn mã ngẫu nhiên nhỏ xíu ở đuôi để tránh trùng lặp
                     ));
 
-            // 3. Lấy URL trả về
+            // 4. Lấy URL trả về
             return uploadResult.get("secure_url").toString();
 
         } catch (IOException e) {
             throw new IOException("Failed to upload file to Cloudinary: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+            if (tempDir != null) {
+                Files.deleteIfExists(tempDir);
+            }
         }
     }
-}
\ No newline at end of file
+
+    // URL dạng .../<resource_type>/upload/v123/<folder>/<name>.<ext>
+    private static final Pattern DELIVERY_URL = Pattern.compile("/(image|video|raw)/upload/(?:v\\d+/)?(.+)$");
+
+    @Override
+    public void deleteFile(String fileUrl) throws IOException {
+        Matcher matcher = DELIVERY_URL.matcher(fileUrl);
+        if (!matcher.find()) {
+            throw new IOException("Not a Cloudinary delivery URL: " + fileUrl);
+        }
+
+        String resourceType = matcher.group(1);
+        String publicId = matcher.group(2);
+
+        // Với ảnh/video, public_id không chứa phần mở rộng; với "raw" thì có
+        int dot = publicId.lastIndexOf('.');
+        if (!"raw".equals(resourceType) && dot > publicId.lastIndexOf('/')) {
+            publicId = publicId.substring(0, dot);
+        }
+
+        cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", resourceType));
+    }
+
+    static String safeFileName(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            return "upload";
+        }
+
+        Path fileName = Path.of(originalFilename.replace('\\', '/')).getFileName();
+        if (fileName == null) {
+            return "upload";
+        }
+
+        String name = fileName.toString().replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isBlank() || name.startsWith(".") ? "upload" + name : name;
+    }
+}
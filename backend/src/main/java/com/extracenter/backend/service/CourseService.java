@@ -1,11 +1,9 @@
 package com.extracenter.backend.service;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -44,6 +42,7 @@ import com.extracenter.backend.repository.MaterialRepository;
 import com.extracenter.backend.repository.SubjectRepository;
 import com.extracenter.backend.repository.UserRepository;
 import com.extracenter.backend.repository.VerificationTokenRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
 
 @Service
 public class CourseService {
@@ -81,6 +80,15 @@ public class CourseService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ClassSlotConflictIndex classSlotConflictIndex;
+
+    @Autowired
+    private TeacherAvailabilityIndex teacherAvailabilityIndex;
+
+    @Autowired
+    private StudentTimetableIndex studentTimetableIndex;
+
     @Transactional
     public Course createCourse(CourseRequest request) {
         // 1. Find Center and Teacher
@@ -126,8 +134,19 @@ public class CourseService {
                 slot.setIsRecurring(true);
                 slot.setCenter(center);
                 slot.setCourse(savedCourse);
-                savedSlots.add(classSlotRepository.save(slot));
+
+                if (slot.getStartTime() != null && slot.getEndTime() != null
+                        && teacherAvailabilityIndex.findClash(teacher.getId(), slot.getStartDate(), slot.getEndDate(),
+                                slot.getDaysOfWeek(), slot.getStartTime(), slot.getEndTime(), null, null) != null) {
+                    throw new RuntimeException("The teacher is already teaching another class at "
+                            + slotReq.getDayOfWeek() + " " + slotReq.getStartTime() + ".");
+                }
+
+                ClassSlot savedSlot = classSlotRepository.save(slot);
+                classSlotConflictIndex.slotSaved(savedSlot);
+                savedSlots.add(savedSlot);
             }
+            teacherAvailabilityIndex.evictTeacher(teacher.getId());
         }
 
         // 4. THE MAGIC: Automatically generate the physical calendar days
@@ -140,58 +159,51 @@ public class CourseService {
     }
 
     // Helper method to generate ClassSessions based on the start/end date and slot
-    // rules
-    private void generateClassSessions(Course course, List<ClassSlot> slots) {
+    // rules (package-private for SessionGenerationBenchmark)
+    void generateClassSessions(Course course, List<ClassSlot> slots) {
         List<ClassSession> sessionsToSave = new ArrayList<>();
-        LocalDate currentDate = course.getStartDate();
-        LocalDate endDate = course.getEndDate();
-
-        while (!currentDate.isAfter(endDate)) {
-            // Java DayOfWeek: 1=Monday, 7=Sunday. Matches your convention!
-            DayOfWeek currentDayOfWeek = currentDate.getDayOfWeek();
-
-            for (ClassSlot slot : slots) {
-                if (slot.getDaysOfWeek() != null && slot.getDaysOfWeek().contains(currentDayOfWeek)) {
-                    ClassSession session = new ClassSession();
-                    session.setCourse(course);
-                    session.setDate(currentDate);
-                    session.setStartTime(slot.getStartTime());
-                    session.setEndTime(slot.getEndTime());
-                    sessionsToSave.add(session);
-                }
+
+        for (ClassSlot slot : slots) {
+            // Jump straight to the slot's weekdays instead of walking every day
+            for (LocalDate date : SlotRecurrence.of(slot).occurrences(course.getStartDate(), course.getEndDate())) {
+                ClassSession session = new ClassSession();
+                session.setCourse(course);
+                session.setClassSlot(slot);
+                session.setDate(date);
+                session.setStartTime(slot.getStartTime());
+                session.setEndTime(slot.getEndTime());
+                sessionsToSave.add(session);
             }
-            currentDate = currentDate.plusDays(1); // Move to next day
         }
 
-        // Batch save for high performance
+        // Batch save for high performance (sequence ids + hibernate.jdbc.batch_size)
         classSessionRepository.saveAll(sessionsToSave);
     }
 
+    // Course status is moved forward by CourseStatusScheduler, so the list
+    // endpoints below are pure reads (no UPDATE inside a GET)
+    @Transactional(readOnly = true)
     public List<Course> getAllCourses() {
-        return courseRepository.findAll().stream()
-            .map(this::syncCourseStatus)
-            .collect(Collectors.toList());
+        return courseRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Course> getCoursesByTeacher(Long teacherId) {
         validateTeacherCourseAccess(teacherId);
-        return courseRepository.findByTeacherId(teacherId).stream()
-            .map(this::syncCourseStatus)
-            .collect(Collectors.toList());
+        return courseRepository.findByTeacherId(teacherId);
     }
 
+    @Transactional(readOnly = true)
     public List<Course> getCoursesByStudentId(Long studentId) {
-        return courseRepository.findByStudentId(studentId).stream()
-            .map(this::syncCourseStatus)
-            .collect(Collectors.toList());
+        return courseRepository.findByStudentId(studentId);
     }
 
+    @Transactional(readOnly = true)
     public List<Course> getCoursesByCenter(Long centerId) {
-        return courseRepository.findByCenterId(centerId).stream()
-            .map(this::syncCourseStatus)
-            .collect(Collectors.toList());
+        return courseRepository.findByCenterId(centerId);
     }
 
+    @Transactional(readOnly = true)
     public List<Course> getVisibleCoursesByCenter(Long centerId) {
         User currentUser = getCurrentUser();
 
@@ -207,34 +219,33 @@ public class CourseService {
         }
 
         if (isTeacher(currentUser)) {
-            return courseRepository.findByCenterIdAndTeacherId(centerId, currentUser.getId()).stream()
-                    .map(this::syncCourseStatus)
-                    .collect(Collectors.toList());
+            return courseRepository.findByCenterIdAndTeacherId(centerId, currentUser.getId());
         }
 
         throw new RuntimeException("You do not have permission to view courses in this center.");
     }
 
+    @Transactional(readOnly = true)
     public Course getCourseById(Long id) {
         Course course = courseRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Course not found!"));
         validateCourseViewer(course);
-        return syncCourseStatus(course);
+        return course;
     }
 
-    @Transactional
+    // Pure read: sessions are kept in line with their slots by ClassSessionReconciler on every
+    // slot write (and ClassSessionSlotBackfill for old data), not re-synced on each GET
+    @Transactional(readOnly = true)
     public List<CourseSessionResponse> getClassSessionsByCourse(Long courseId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found!"));
 
         validateCourseViewer(course);
 
-        synchronizeSessionsFromActiveClassSlots(course);
-
-        return classSessionRepository.findByCourseIdOrderByDateAsc(courseId)
+        // Session chưa gắn slot (dữ liệu cũ không khớp slot nào) bị loại bởi JOIN
+        return classSessionRepository.findLinkedByCourseIdWithSlot(courseId)
                 .stream()
-                .map(session -> mapToSessionResponse(session, findMatchingSlot(session)))
-                .filter(response -> response.getClassSlotId() != null)
+                .map(session -> mapToSessionResponse(session, session.getClassSlot()))
                 .collect(Collectors.toList());
     }
 
@@ -281,6 +292,7 @@ public class CourseService {
 
         ClassSession session = new ClassSession();
         session.setCourse(course);
+        session.setClassSlot(slot);
         session.setDate(request.getDate());
         session.setStartTime(slot.getStartTime());
         session.setEndTime(slot.getEndTime());
@@ -318,6 +330,7 @@ public class CourseService {
             throw new RuntimeException("Another session already exists for this slot and date.");
         }
 
+        session.setClassSlot(slot);
         session.setDate(request.getDate());
         session.setStartTime(slot.getStartTime());
         session.setEndTime(slot.getEndTime());
@@ -416,7 +429,18 @@ public class CourseService {
         course.setDescription(request.getDescription());
         course.setStartDate(request.getStartDate());
         course.setEndDate(request.getEndDate());
+        if (course.getId() != null && course.getCenter() != null && !center.getId().equals(course.getCenter().getId())) {
+            classSessionRepository.updateCenterIdByCourseId(course.getId(), center.getId());
+        }
         course.setCenter(center);
+
+        // Đổi giáo viên của khóa học đã có lịch: giáo viên mới phải rảnh ở mọi slot
+        Long previousTeacherId = course.getTeacher() != null ? course.getTeacher().getId() : null;
+        if (course.getId() != null && !teacher.getId().equals(previousTeacherId)) {
+            validateTeacherFreeForCourse(course, teacher.getId());
+            teacherAvailabilityIndex.evictTeacher(previousTeacherId);
+            teacherAvailabilityIndex.evictTeacher(teacher.getId());
+        }
         course.setTeacher(teacher);
 
         if (deriveStatusFromDates) {
@@ -482,6 +506,8 @@ public class CourseService {
         validateCourseDeletionEligibility(course);
 
         deleteCourseAndRelatedData(courseId);
+        classSlotConflictIndex.evict(course.getCenter().getId());
+        teacherAvailabilityIndex.evictTeacher(course.getTeacher() != null ? course.getTeacher().getId() : null);
         verificationTokenRepository.delete(token);
     }
 
@@ -508,6 +534,7 @@ public class CourseService {
             assignmentRepository.deleteByCourseId(courseId);
             materialRepository.deleteByCourseId(courseId);
             enrollmentRepository.deleteByCourseId(courseId);
+            studentTimetableIndex.evictCourse(courseId);
             classSessionRepository.deleteByCourseId(courseId);
             classSlotRepository.deleteByCourseId(courseId);
             courseRepository.deleteById(courseId);
@@ -560,6 +587,10 @@ public class CourseService {
             throw new RuntimeException("Teacher is not linked to this center.");
         }
 
+        validateTeacherFreeForCourse(course, teacherId);
+        teacherAvailabilityIndex.evictTeacher(course.getTeacher() != null ? course.getTeacher().getId() : null);
+        teacherAvailabilityIndex.evictTeacher(teacherId);
+
         course.setTeacher(teacher);
         course.setPendingTeacher(null);
         course.setInvitationStatus("ACCEPTED");
@@ -572,6 +603,11 @@ public class CourseService {
                 .orElseThrow(() -> new RuntimeException("Course not found!"));
 
         if ("ACCEPTED".equals(status)) {
+            if (course.getPendingTeacher() != null) {
+                validateTeacherFreeForCourse(course, course.getPendingTeacher().getId());
+                teacherAvailabilityIndex.evictTeacher(course.getTeacher() != null ? course.getTeacher().getId() : null);
+                teacherAvailabilityIndex.evictTeacher(course.getPendingTeacher().getId());
+            }
             course.setTeacher(course.getPendingTeacher());
             course.setPendingTeacher(null);
             course.setInvitationStatus("ACCEPTED");
@@ -604,13 +640,17 @@ public class CourseService {
             throw new RuntimeException("Student is already enrolled in this class!");
         }
 
-        // 2. Create new Enrollment
+        // 2. Reject if the class overlaps a course the student already takes
+        studentTimetableIndex.requireNoClash(studentId, courseId, classSlotRepository.findByCourseId(courseId));
+
+        // 3. Create new Enrollment
         Enrollment enrollment = new Enrollment();
         enrollment.setCourse(course);
         enrollment.setStudent(student);
         enrollmentRepository.save(enrollment);
+        studentTimetableIndex.evictStudent(studentId);
 
-        // 3. Link student to Center (if not already linked)
+        // 4. Link student to Center (if not already linked)
         if (course.getCenter() != null) {
             boolean isAlreadyInCenter = student.getConnectedCenters().stream()
                     .anyMatch(c -> c.getId().equals(course.getCenter().getId()));
@@ -628,6 +668,7 @@ public class CourseService {
                 .orElseThrow(() -> new RuntimeException("Student is not enrolled in this class!"));
 
         enrollmentRepository.delete(enrollment);
+        studentTimetableIndex.evictStudent(studentId);
     }
 
     // Retrieve list of students via Enrollment repository for better performance
@@ -713,24 +754,6 @@ public class CourseService {
         return user.getRole() != null && "STUDENT".equalsIgnoreCase(user.getRole().getName());
     }
 
-    private Course syncCourseStatus(Course course) {
-        if (course == null) {
-            return null;
-        }
-
-        if (course.getStatus() == CourseStatus.ENDED) {
-            return course;
-        }
-
-        CourseStatus derivedStatus = deriveStatusFromDates(course.getStartDate(), course.getEndDate());
-        if (course.getStatus() != derivedStatus) {
-            course.setStatus(derivedStatus);
-            return courseRepository.save(course);
-        }
-
-        return course;
-    }
-
     private CourseStatus deriveStatusFromDates(LocalDate startDate, LocalDate endDate) {
         LocalDate today = LocalDate.now();
 
@@ -749,6 +772,22 @@ public class CourseService {
         return CourseStatus.IN_PROGRESS;
     }
 
+    // Every slot of the course must fit into the teacher's schedule across all centers
+    private void validateTeacherFreeForCourse(Course course, Long teacherId) {
+        for (ClassSlot slot : classSlotRepository.findByCourseId(course.getId())) {
+            if (slot.getStartDate() == null || slot.getEndDate() == null
+                    || slot.getStartTime() == null || slot.getEndTime() == null) {
+                continue;
+            }
+
+            Long clash = teacherAvailabilityIndex.findClash(teacherId, slot.getStartDate(), slot.getEndDate(),
+                    slot.getDaysOfWeek(), slot.getStartTime(), slot.getEndTime(), null, course.getId());
+            if (clash != null) {
+                throw new RuntimeException("Teacher is already teaching another class at the time of this course.");
+            }
+        }
+    }
+
     private void validateSlotBelongsToCourse(Long courseId, ClassSlot slot) {
         if (slot.getCourse() == null || !slot.getCourse().getId().equals(courseId)) {
             throw new RuntimeException("Selected class slot does not belong to this course.");
@@ -756,129 +795,21 @@ public class CourseService {
     }
 
     private void validateDateFitsSlot(LocalDate date, ClassSlot slot) {
-        if (date.isBefore(slot.getStartDate()) || date.isAfter(slot.getEndDate())) {
-            throw new RuntimeException("Session date must be inside selected class slot date range.");
-        }
+        SlotRecurrence recurrence = SlotRecurrence.of(slot);
 
-        Set<DayOfWeek> effectiveDays = slot.getDaysOfWeek();
-        if ((effectiveDays == null || effectiveDays.isEmpty()) && slot.getDayOfWeek() != null) {
-            effectiveDays = Set.of(slot.getDayOfWeek());
+        if (!recurrence.coversDate(date)) {
+            throw new RuntimeException("Session date must be inside selected class slot date range.");
         }
 
-        if (effectiveDays == null || effectiveDays.isEmpty() || !effectiveDays.contains(date.getDayOfWeek())) {
+        if (!recurrence.runsOnWeekday(date.getDayOfWeek())) {
             throw new RuntimeException("Session date does not match selected class slot day of week.");
         }
 
-        if (slot.getExcludedDates() != null && slot.getExcludedDates().contains(date)) {
+        if (recurrence.isExcluded(date)) {
             throw new RuntimeException("Selected date is excluded from this class slot.");
         }
     }
 
-    private void synchronizeSessionsFromActiveClassSlots(Course course) {
-        if (course.getStartDate() == null || course.getEndDate() == null) {
-            return;
-        }
-
-        List<ClassSlot> activeSlots = classSlotRepository.findByCourseId(course.getId())
-                .stream()
-                .filter(slot -> slot.getClassroom() != null)
-                .collect(Collectors.toList());
-
-        if (activeSlots.isEmpty()) {
-            return;
-        }
-
-        Set<String> existingKeys = classSessionRepository.findByCourseIdOrderByDateAsc(course.getId())
-                .stream()
-                .map(this::buildSessionKey)
-                .collect(Collectors.toCollection(HashSet::new));
-
-        List<ClassSession> sessionsToCreate = new ArrayList<>();
-
-        for (ClassSlot slot : activeSlots) {
-            LocalDate slotStart = slot.getStartDate() != null && slot.getStartDate().isAfter(course.getStartDate())
-                    ? slot.getStartDate()
-                    : course.getStartDate();
-            LocalDate slotEnd = slot.getEndDate() != null && slot.getEndDate().isBefore(course.getEndDate())
-                    ? slot.getEndDate()
-                    : course.getEndDate();
-
-            if (slotStart.isAfter(slotEnd) || slot.getStartTime() == null || slot.getEndTime() == null) {
-                continue;
-            }
-
-            Set<DayOfWeek> effectiveDays = slot.getDaysOfWeek();
-            if ((effectiveDays == null || effectiveDays.isEmpty()) && slot.getDayOfWeek() != null) {
-                effectiveDays = Set.of(slot.getDayOfWeek());
-            }
-
-            if (effectiveDays == null || effectiveDays.isEmpty()) {
-                continue;
-            }
-
-            LocalDate current = slotStart;
-            while (!current.isAfter(slotEnd)) {
-                boolean isExcluded = slot.getExcludedDates() != null && slot.getExcludedDates().contains(current);
-                if (!isExcluded && effectiveDays.contains(current.getDayOfWeek())) {
-                    String key = current + "|" + slot.getStartTime() + "|" + slot.getEndTime();
-                    if (!existingKeys.contains(key)) {
-                        ClassSession session = new ClassSession();
-                        session.setCourse(course);
-                        session.setDate(current);
-                        session.setStartTime(slot.getStartTime());
-                        session.setEndTime(slot.getEndTime());
-                        session.setStatus("SCHEDULED");
-                        sessionsToCreate.add(session);
-                        existingKeys.add(key);
-                    }
-                }
-
-                current = current.plusDays(1);
-            }
-        }
-
-        if (!sessionsToCreate.isEmpty()) {
-            classSessionRepository.saveAll(sessionsToCreate);
-        }
-    }
-
-    private String buildSessionKey(ClassSession session) {
-        return session.getDate() + "|" + session.getStartTime() + "|" + session.getEndTime();
-    }
-
-    private ClassSlot findMatchingSlot(ClassSession session) {
-        LocalDate date = session.getDate();
-
-        for (ClassSlot slot : classSlotRepository.findByCourseId(session.getCourse().getId())) {
-            if (date.isBefore(slot.getStartDate()) || date.isAfter(slot.getEndDate())) {
-                continue;
-            }
-
-            Set<DayOfWeek> effectiveDays = slot.getDaysOfWeek();
-            if ((effectiveDays == null || effectiveDays.isEmpty()) && slot.getDayOfWeek() != null) {
-                effectiveDays = Set.of(slot.getDayOfWeek());
-            }
-
-            if (effectiveDays == null || !effectiveDays.contains(date.getDayOfWeek())) {
-                continue;
-            }
-
-            if (slot.getExcludedDates() != null && slot.getExcludedDates().contains(date)) {
-                continue;
-            }
-
-            if (slot.getStartTime() == null || slot.getEndTime() == null
-                    || !slot.getStartTime().equals(session.getStartTime())
-                    || !slot.getEndTime().equals(session.getEndTime())) {
-                continue;
-            }
-
-            return slot;
-        }
-
-        return null;
-    }
-
     private CourseSessionResponse mapToSessionResponse(ClassSession session, ClassSlot slot) {
         return CourseSessionResponse.builder()
                 .id(session.getId())
@@ -0,0 +1,44 @@
+package com.extracenter.backend.service;
+
+import com.extracenter.backend.entity.CourseStatus;
+import com.extracenter.backend.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+// Moves course status forward (UPCOMING -> IN_PROGRESS -> ENDED) in bulk once a day,
+// so course list endpoints never have to write while reading.
+@Component
+public class CourseStatusScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseStatusScheduler.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    // Catch up on startup in case the server was down at midnight
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void onStartup() {
+        transitionCourseStatuses();
+    }
+
+    // Run every day right after midnight (00:00:05) server time
+    @Scheduled(cron = "5 0 0 * * ?")
+    @Transactional
+    public void transitionCourseStatuses() {
+        LocalDate today = LocalDate.now();
+
+        int ended = courseRepository.markEndedBefore(today, CourseStatus.ENDED);
+        int started = courseRepository.markStarted(today, CourseStatus.UPCOMING, CourseStatus.IN_PROGRESS);
+
+        logger.info("Course status transition for {}: {} started, {} ended", today, started, ended);
+    }
+}
@@ -0,0 +1,77 @@
+package com.extracenter.backend.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// Hands out ECM emails "prefix@", "prefix1@", "prefix2@"... from a per-prefix counter
+// (email_prefix_counter) instead of probing users.email one suffix at a time.
+// The counter row is bumped with a single UPDATE ... RETURNING; the row lock is held until the
+// caller's transaction ends, so concurrent creates with the same prefix get different suffixes
+// and a rolled-back create gives its suffix back.
+@Component
+@DependsOn("entityManagerFactory")
+public class EcmEmailAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EcmEmailAllocator.class);
+
+    private static final String DOMAIN = "@ecm.edu.vn";
+
+    private static final String NEXT_SUFFIX = "UPDATE email_prefix_counter SET last_suffix = last_suffix + 1 "
+            + "WHERE prefix = ? RETURNING last_suffix";
+
+    // First use of a prefix: start after the highest suffix already taken in users
+    // (emails written before the counter existed); suffix 0 = the bare "prefix@ecm.edu.vn".
+    // ON CONFLICT covers two first uses racing each other.
+    private static final String SEED_SUFFIX = "INSERT INTO email_prefix_counter (prefix, last_suffix) "
+            + "SELECT ?, COALESCE(MAX(CAST(COALESCE(NULLIF(substring(u.email from ?), ''), '0') AS bigint)), -1) + 1 "
+            + "FROM users u WHERE u.email LIKE ? AND u.email ~ ? "
+            + "ON CONFLICT (prefix) DO UPDATE SET last_suffix = email_prefix_counter.last_suffix + 1 "
+            + "RETURNING last_suffix";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EcmEmailAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void setup() {
+        // Without the counter table every account creation fails: refuse to start instead
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS email_prefix_counter ("
+                    + "prefix VARCHAR(255) PRIMARY KEY, last_suffix BIGINT NOT NULL)");
+        } catch (Exception e) {
+            throw new IllegalStateException("ECM email counter setup failed", e);
+        }
+
+        try {
+            // Lets the one-off seed scan use "email LIKE 'prefix%'" as an index range
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_users_email_pattern "
+                    + "ON users (email varchar_pattern_ops)");
+        } catch (Exception e) {
+            // Only makes the first allocation of a prefix slower
+            logger.error("ECM email prefix index setup failed: {}", e.getMessage());
+        }
+    }
+
+    // prefix comes from EmailUtils.generateEmailPrefix, so it is [a-z0-9]* and safe inside LIKE / regex
+    public String allocate(String prefix) {
+        List<Long> next = jdbcTemplate.queryForList(NEXT_SUFFIX, Long.class, prefix);
+        long suffix = !next.isEmpty()
+                ? next.get(0)
+                : jdbcTemplate.queryForObject(SEED_SUFFIX, Long.class,
+                        prefix,
+                        "^" + prefix + "([0-9]{0,9})@ecm\\.edu\\.vn$",
+                        prefix + "%",
+                        "^" + prefix + "[0-9]{0,9}@ecm\\.edu\\.vn$");
+
+        return prefix + (suffix == 0 ? "" : String.valueOf(suffix)) + DOMAIN;
+    }
+}
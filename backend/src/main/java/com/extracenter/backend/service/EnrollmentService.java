@@ -4,6 +4,7 @@ import com.extracenter.backend.dto.EnrollmentRequest;
 import com.extracenter.backend.entity.Course;
 import com.extracenter.backend.entity.Enrollment;
 import com.extracenter.backend.entity.User;
+import com.extracenter.backend.repository.ClassSlotRepository;
 import com.extracenter.backend.repository.CourseRepository;
 import com.extracenter.backend.repository.EnrollmentRepository;
 import com.extracenter.backend.repository.UserRepository;
@@ -28,6 +29,12 @@ public class EnrollmentService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    @Autowired
+    private StudentTimetableIndex studentTimetableIndex;
+
     // Add a student to a specific course
     // @Transactional is required because we are modifying both Enrollment AND User
     // tables
@@ -54,6 +61,10 @@ public class EnrollmentService {
             throw new RuntimeException("This student is already enrolled in this class!");
         }
 
+        // 4b. Check the student's timetable (throws TimetableClashException with the clashing sessions)
+        studentTimetableIndex.requireNoClash(student.getId(), course.getId(),
+                classSlotRepository.findByCourseId(course.getId()));
+
         // 5. Create and save the Enrollment
         Enrollment enrollment = new Enrollment();
         enrollment.setStudent(student);
@@ -74,6 +85,8 @@ public class EnrollmentService {
             userService.connectStudentToCenter(student.getId(), course.getCenter().getId());
         }
 
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        studentTimetableIndex.evictStudent(student.getId());
+        return saved;
     }
 }
\ No newline at end of file
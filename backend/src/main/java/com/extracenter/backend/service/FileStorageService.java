@@ -0,0 +1,31 @@
+package com.extracenter.backend.service;
+
+import java.io.IOException;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+// Nơi lưu file upload (tài liệu, đề bài, bài nộp).
+// Chọn backend bằng storage.provider: "cloudinary" (mặc định) hoặc "local" (dev/test).
+// Các implementation phải đọc file theo kiểu stream, không nạp cả file lên heap.
+public interface FileStorageService {
+
+    // Lưu file và trả về URL công khai của file
+    String uploadFile(MultipartFile file) throws IOException;
+
+    // Xóa file đã upload (theo URL do uploadFile trả về)
+    void deleteFile(String fileUrl) throws IOException;
+
+    // Dọn file mồ côi khi ghi DB thất bại: không được che mất lỗi gốc
+    default void deleteQuietly(String fileUrl) {
+        if (fileUrl == null) {
+            return;
+        }
+        try {
+            deleteFile(fileUrl);
+        } catch (Exception e) {
+            LoggerFactory.getLogger(FileStorageService.class)
+                    .warn("Could not remove orphaned upload {}: {}", fileUrl, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.extracenter.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+// Backend lưu file trên đĩa cục bộ, dùng khi chạy test / dev không có Cloudinary
+// (storage.provider=local). File được copy theo stream với buffer cố định.
+@Service
+@ConditionalOnProperty(name = "storage.provider", havingValue = "local")
+public class LocalFileStorageService implements FileStorageService {
+
+    @Value("${storage.local.root-dir:${java.io.tmpdir}/extracenter-uploads}")
+    private String rootDir;
+
+    @Override
+    public String uploadFile(MultipartFile file) throws IOException {
+        Path root = Paths.get(rootDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        String storedName = UUID.randomUUID() + "_" + CloudinaryService.safeFileName(file.getOriginalFilename());
+        Path target = root.resolve(storedName);
+
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, target);
+        }
+
+        return target.toUri().toString();
+    }
+
+    @Override
+    public void deleteFile(String fileUrl) throws IOException {
+        Path root = Paths.get(rootDir).toAbsolutePath().normalize();
+        Path target = Paths.get(URI.create(fileUrl)).toAbsolutePath().normalize();
+
+        // Chỉ xóa file nằm trong thư mục lưu trữ
+        if (target.startsWith(root)) {
+            Files.deleteIfExists(target);
+        }
+    }
+}
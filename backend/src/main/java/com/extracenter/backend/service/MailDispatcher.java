@@ -0,0 +1,234 @@
+package com.extracenter.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.extracenter.backend.entity.MailOutbox;
+import com.extracenter.backend.repository.MailOutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Delivers MailOutbox rows on the bounded "mailExecutor" pool.
+// Each batch goes out over one SMTP connection (JavaMailSender.send(varargs));
+// failed mails are retried with exponential backoff by the periodic sweep.
+// Rows are claimed with FOR UPDATE SKIP LOCKED and moved to SENDING under a lease,
+// so several app instances never pick up the same mail. A claim whose instance died
+// becomes due again once the lease runs out.
+@Component
+public class MailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("mailExecutor")
+    private TaskExecutor mailExecutor;
+
+    @Value("${spring.mail.username}")
+    private String senderEmail;
+
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.base-backoff-seconds:30}")
+    private long baseBackoffSeconds;
+
+    // Must be longer than the SMTP timeouts of a whole batch, or the claim could be taken twice
+    @Value("${mail.outbox.claim-lease-seconds:600}")
+    private long claimLeaseSeconds;
+
+    @Value("${mail.outbox.retention-days:14}")
+    private int retentionDays;
+
+    // One drain at a time per instance (the DB claim is what keeps instances apart)
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private final AtomicLong pendingGauge = new AtomicLong();
+    private final Timer sendLatency;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    public MailDispatcher(MeterRegistry meterRegistry) {
+        Gauge.builder("mail.outbox.pending", pendingGauge, AtomicLong::get)
+                .description("Mails waiting in the outbox")
+                .register(meterRegistry);
+        this.sendLatency = Timer.builder("mail.send.latency")
+                .description("Time to deliver one batch over SMTP")
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("mail.sent");
+        this.failedCounter = meterRegistry.counter("mail.send.failures");
+    }
+
+    // Triggered after the enqueuing transaction commits
+    @Async("mailExecutor")
+    public void dispatchAsync() {
+        drain();
+    }
+
+    // Safety net: picks up retries and anything the executor rejected.
+    // The drain itself runs on mailExecutor so slow SMTP never holds the shared scheduler thread.
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:30000}")
+    public void sweep() {
+        mailExecutor.execute(this::drain);
+    }
+
+    public void drain() {
+        if (!drainLock.tryLock()) {
+            return;
+        }
+
+        try {
+            boolean healthy = true;
+            while (healthy) {
+                List<MailOutbox> batch = claimBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                healthy = sendBatch(batch);
+                mailOutboxRepository.saveAll(batch);
+            }
+        } catch (Exception e) {
+            logger.error("Mail outbox drain failed: {}", e.getMessage());
+        } finally {
+            pendingGauge.set(mailOutboxRepository.countByStatus(MailOutbox.PENDING));
+            drainLock.unlock();
+        }
+    }
+
+    // Due PENDING rows (and SENDING rows whose lease ran out) -> SENDING, in one short transaction
+    private List<MailOutbox> claimBatch() {
+        List<MailOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = mailOutboxRepository.lockDueIds(now, batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+
+            mailOutboxRepository.markSending(ids, now.plusSeconds(claimLeaseSeconds));
+            return mailOutboxRepository.findAllById(ids);
+        });
+
+        if (batch == null) {
+            return List.of();
+        }
+        return batch.stream().sorted(Comparator.comparing(MailOutbox::getId)).toList();
+    }
+
+    // Sent rows only keep their metadata (no OTP / password); old SENT and FAILED rows are dropped
+    @Scheduled(cron = "0 30 0 * * ?")
+    public void purgeOldMails() {
+        int purged = transactionTemplate.execute(status -> mailOutboxRepository.deleteByStatusInAndCreatedDateBefore(
+                List.of(MailOutbox.SENT, MailOutbox.FAILED), LocalDateTime.now().minusDays(retentionDays)));
+        if (purged > 0) {
+            logger.info("Purged {} old outbox mails", purged);
+        }
+    }
+
+    // Returns false when the batch hit a failure, so the loop backs off until the next sweep
+    private boolean sendBatch(List<MailOutbox> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            messages[i] = toMessage(batch.get(i));
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        MailException batchError = null;
+
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            batchError = e;
+            failed = e.getFailedMessages();
+        } catch (MailException e) {
+            batchError = e;
+        } finally {
+            sample.stop(sendLatency);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            MailOutbox mail = batch.get(i);
+            boolean mailFailed = batchError != null && (failed.isEmpty() || failed.containsKey(messages[i]));
+
+            if (!mailFailed) {
+                mail.setStatus(MailOutbox.SENT);
+                mail.setSentAt(now);
+                mail.setBody(null);
+                sentCounter.increment();
+                continue;
+            }
+
+            Exception cause = failed.containsKey(messages[i]) ? failed.get(messages[i]) : batchError;
+            markFailedAttempt(mail, cause, now);
+            failedCounter.increment();
+        }
+
+        if (batchError != null) {
+            logger.warn("Mail batch of {} had failures: {}", batch.size(), batchError.getMessage());
+        }
+        return batchError == null;
+    }
+
+    private void markFailedAttempt(MailOutbox mail, Exception cause, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+
+        String error = cause != null && cause.getMessage() != null ? cause.getMessage() : "Unknown error";
+        mail.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+
+        if (attempts >= maxAttempts) {
+            mail.setStatus(MailOutbox.FAILED);
+            logger.error("Giving up on mail {} to {} after {} attempts", mail.getId(), mail.getRecipient(), attempts);
+            return;
+        }
+
+        // 30s, 1m, 2m, 4m ... capped at 1 hour
+        long delay = Math.min(baseBackoffSeconds << Math.min(attempts - 1, 16), 3600);
+        mail.setStatus(MailOutbox.PENDING);
+        mail.setNextAttemptAt(now.plusSeconds(delay));
+    }
+
+    private SimpleMailMessage toMessage(MailOutbox mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(senderEmail); // Always set 'From' to prevent spam folder issues
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getBody());
+        return message;
+    }
+}
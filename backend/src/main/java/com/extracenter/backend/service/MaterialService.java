@@ -6,6 +6,7 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.extracenter.backend.entity.ClassSession;
@@ -26,34 +27,45 @@ public class MaterialService {
     private ClassSessionRepository classSessionRepository;
 
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     // 1. Upload a new material (Slide, PDF, Video link) with ACTUAL FILE
-    @Transactional
+    // Upload trước, ngoài transaction: không giữ connection DB trong lúc chờ Cloudinary.
+    // Nếu ghi DB lỗi (course/session không tồn tại...) thì xóa file vừa upload.
     public Material uploadMaterial(MultipartFile file, Long courseId, Long classSessionId, String fileName)
             throws IOException {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found!"));
+        String fileUrl = fileStorageService.uploadFile(file);
 
-        String fileUrl = cloudinaryService.uploadFile(file);
+        try {
+            return transactionTemplate.execute(status -> {
+                Course course = courseRepository.findById(courseId)
+                        .orElseThrow(() -> new RuntimeException("Course not found!"));
 
-        Material material = new Material();
-        if (fileName != null && !fileName.isEmpty()) {
-            material.setFileName(fileName);
-        } else {
-            material.setFileName(file.getOriginalFilename());
-        }
-        material.setFileUrl(fileUrl); // URL Cloudinary
-        material.setFileType(file.getContentType()); // file (vd: application/pdf)
-        material.setCourse(course);
+                Material material = new Material();
+                if (fileName != null && !fileName.isEmpty()) {
+                    material.setFileName(fileName);
+                } else {
+                    material.setFileName(file.getOriginalFilename());
+                }
+                material.setFileUrl(fileUrl); // URL Cloudinary
+                material.setFileType(file.getContentType()); // file (vd: application/pdf)
+                material.setCourse(course);
 
-        if (classSessionId != null) {
-            ClassSession session = classSessionRepository.findById(classSessionId)
-                    .orElseThrow(() -> new RuntimeException("Class session not found!"));
-            material.setClassSession(session);
-        }
+                if (classSessionId != null) {
+                    ClassSession session = classSessionRepository.findById(classSessionId)
+                            .orElseThrow(() -> new RuntimeException("Class session not found!"));
+                    material.setClassSession(session);
+                }
 
-        return materialRepository.save(material);
+                return materialRepository.save(material);
+            });
+        } catch (RuntimeException e) {
+            fileStorageService.deleteQuietly(fileUrl);
+            throw e;
+        }
     }
 
     // 2. Get general course materials (Syllabus, general rules)
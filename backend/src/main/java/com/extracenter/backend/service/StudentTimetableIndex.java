@@ -0,0 +1,243 @@
+package com.extracenter.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.extracenter.backend.dto.TimetableClash;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.exception.TimetableClashException;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.repository.EnrollmentRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// Per-student timetable used by the enrollment clash check.
+// Each student entry holds the slots of every course they take plus a weekly summary
+// (one long per weekday, 48 half-hour cells). A new course whose slots don't touch any
+// busy cell is accepted without looking at dates; only colliding slots are expanded
+// into sessions. Entries are loaded on first use and dropped after enrollment / slot changes.
+@Component
+public class StudentTimetableIndex {
+
+    // Enough to show the user what is wrong without expanding a whole semester
+    private static final int MAX_CLASHES = 50;
+
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final Map<Long, Timetable> students = new ConcurrentHashMap<>();
+
+    // A single counter: course-level evictions touch an unknown set of students
+    private final AtomicLong version = new AtomicLong();
+
+    // Sessions of courseSlots that overlap the student's other courses (empty list = no clash).
+    // courseSlots is passed in so a bulk enrollment loads the course's slots only once.
+    public List<TimetableClash> findClashes(Long studentId, Long courseId, Collection<ClassSlot> courseSlots) {
+        List<TimetableClash> clashes = new ArrayList<>();
+        Timetable timetable = getOrLoad(studentId);
+        if (timetable.rules.isEmpty()) {
+            return clashes;
+        }
+
+        for (ClassSlot slot : courseSlots) {
+            if (slot.getStartDate() == null || slot.getEndDate() == null
+                    || slot.getStartTime() == null || slot.getEndTime() == null) {
+                continue;
+            }
+
+            SlotRecurrence recurrence = SlotRecurrence.of(slot);
+            int startMinute = toMinute(slot.getStartTime());
+            int endMinute = toMinute(slot.getEndTime());
+            if (!timetable.collides(recurrence.getDayMask(), cellMask(startMinute, endMinute))) {
+                continue;
+            }
+
+            for (Rule rule : timetable.rules) {
+                if (rule.courseId.equals(courseId)
+                        || (rule.recurrence.getDayMask() & recurrence.getDayMask()) == 0
+                        || rule.startMinute >= endMinute || startMinute >= rule.endMinute
+                        || rule.endDate.isBefore(slot.getStartDate()) || slot.getEndDate().isBefore(rule.startDate)) {
+                    continue;
+                }
+
+                LocalDate from = rule.startDate.isAfter(slot.getStartDate()) ? rule.startDate : slot.getStartDate();
+                LocalDate to = rule.endDate.isBefore(slot.getEndDate()) ? rule.endDate : slot.getEndDate();
+                for (LocalDate date : recurrence.occurrences(from, to)) {
+                    if (!rule.recurrence.occursOn(date)) {
+                        continue;
+                    }
+
+                    clashes.add(TimetableClash.builder()
+                            .date(date)
+                            .startTime(slot.getStartTime())
+                            .endTime(slot.getEndTime())
+                            .classSlotId(slot.getId())
+                            .conflictingCourseId(rule.courseId)
+                            .conflictingCourseName(rule.courseName)
+                            .conflictingClassSlotId(rule.slotId)
+                            .conflictingStartTime(rule.startTime)
+                            .conflictingEndTime(rule.endTime)
+                            .build());
+                    if (clashes.size() >= MAX_CLASHES) {
+                        return clashes;
+                    }
+                }
+            }
+        }
+        return clashes;
+    }
+
+    public void requireNoClash(Long studentId, Long courseId, Collection<ClassSlot> courseSlots) {
+        List<TimetableClash> clashes = findClashes(studentId, courseId, courseSlots);
+        if (!clashes.isEmpty()) {
+            throw new TimetableClashException("This class overlaps " + clashes.size()
+                    + (clashes.size() >= MAX_CLASHES ? "+" : "") + " session(s) the student already has.", clashes);
+        }
+    }
+
+    public void evictStudent(Long studentId) {
+        if (studentId != null) {
+            afterCompletion(() -> students.remove(studentId));
+        }
+    }
+
+    // Slot changes of a course affect every student enrolled in it
+    public void evictCourse(Long courseId) {
+        if (courseId != null) {
+            afterCompletion(() -> students.values().removeIf(timetable -> timetable.courseIds.contains(courseId)));
+        }
+    }
+
+    private void afterCompletion(Runnable evict) {
+        Runnable apply = () -> {
+            version.incrementAndGet();
+            evict.run();
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                apply.run();
+            }
+        });
+    }
+
+    private Timetable getOrLoad(Long studentId) {
+        Timetable timetable = students.get(studentId);
+        if (timetable != null) {
+            return timetable;
+        }
+
+        long seen = version.get();
+        Timetable loaded = load(studentId);
+        if (version.get() == seen) {
+            Timetable existing = students.putIfAbsent(studentId, loaded);
+            return existing != null ? existing : loaded;
+        }
+        return loaded;
+    }
+
+    private Timetable load(Long studentId) {
+        Timetable timetable = new Timetable();
+        // Includes courses with no slot yet, so adding their first slot still evicts this entry
+        timetable.courseIds.addAll(enrollmentRepository.findCourseIdsByStudentId(studentId));
+
+        for (ClassSlot slot : classSlotRepository.findByStudentId(studentId)) {
+            if (slot.getCourse() == null) {
+                continue;
+            }
+            timetable.courseIds.add(slot.getCourse().getId());
+            if (slot.getStartDate() == null || slot.getEndDate() == null
+                    || slot.getStartTime() == null || slot.getEndTime() == null) {
+                continue;
+            }
+            timetable.add(new Rule(slot));
+        }
+        return timetable;
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    // Half-hour cells [startMinute, endMinute) touches, bit 0 = 00:00-00:30
+    private static long cellMask(int startMinute, int endMinute) {
+        int first = Math.max(0, startMinute / 30);
+        int last = Math.min(48, (endMinute + 29) / 30);
+        if (last <= first) {
+            return 0L;
+        }
+        return ((1L << (last - first)) - 1) << first;
+    }
+
+    private static final class Timetable {
+        private final List<Rule> rules = new ArrayList<>();
+        private final Set<Long> courseIds = new HashSet<>();
+        private final long[] weekCells = new long[7];
+
+        private void add(Rule rule) {
+            rules.add(rule);
+            long cells = cellMask(rule.startMinute, rule.endMinute);
+            for (int day = 0; day < 7; day++) {
+                if ((rule.recurrence.getDayMask() & (1 << day)) != 0) {
+                    weekCells[day] |= cells;
+                }
+            }
+        }
+
+        private boolean collides(int dayMask, long cells) {
+            for (int day = 0; day < 7; day++) {
+                if ((dayMask & (1 << day)) != 0 && (weekCells[day] & cells) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Rule {
+        private final Long slotId;
+        private final Long courseId;
+        private final String courseName;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        private final int startMinute;
+        private final int endMinute;
+        private final SlotRecurrence recurrence;
+
+        private Rule(ClassSlot slot) {
+            this.slotId = slot.getId();
+            this.courseId = slot.getCourse().getId();
+            this.courseName = slot.getCourse().getName();
+            this.startDate = slot.getStartDate();
+            this.endDate = slot.getEndDate();
+            this.startTime = slot.getStartTime();
+            this.endTime = slot.getEndTime();
+            this.startMinute = toMinute(startTime);
+            this.endMinute = toMinute(endTime);
+            this.recurrence = SlotRecurrence.of(slot);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.extracenter.backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.extracenter.backend.dto.TeacherBusyInterval;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+// Every ClassSlot a teacher teaches, across all centers, as a list sorted by start date.
+// ClassSlotConflictIndex is per center and can't see a teacher booked in another center;
+// this index answers "is the teacher free" with one in-memory scan of that teacher's rules.
+// A teacher's entry is loaded with one query on first use and dropped after any commit that
+// touches their slots or courses (teacher reassignment, slot create/update/delete...).
+@Component
+public class TeacherAvailabilityIndex {
+
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+
+    private final Map<Long, List<Rule>> teachers = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load racing with a commit is not cached stale
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // Id of a slot of this teacher that overlaps the requested rule, or null if the teacher is free.
+    // excludeSlotId / excludeCourseId skip the slot being edited / the course being (re)assigned.
+    public Long findClash(
+            Long teacherId,
+            LocalDate startDate,
+            LocalDate endDate,
+            Collection<DayOfWeek> days,
+            LocalTime startTime,
+            LocalTime endTime,
+            Long excludeSlotId,
+            Long excludeCourseId) {
+
+        int dayMask = SlotRecurrence.dayMask(days);
+        if (teacherId == null || dayMask == 0) {
+            return null;
+        }
+
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        int startMinute = toMinute(startTime);
+        int endMinute = toMinute(endTime);
+        SlotRecurrence requested = SlotRecurrence.of(startDate, endDate, dayMask, null);
+
+        for (Rule rule : getOrLoad(teacherId)) {
+            if (rule.startDay > endDay) {
+                break;
+            }
+            if (rule.endDay < startDay || (rule.dayMask & dayMask) == 0) {
+                continue;
+            }
+            if (rule.slotId.equals(excludeSlotId) || (rule.courseId != null && rule.courseId.equals(excludeCourseId))) {
+                continue;
+            }
+            if (rule.startMinute >= endMinute || startMinute >= rule.endMinute) {
+                continue;
+            }
+
+            // Ranges and weekdays overlap, but the rule may skip every shared date (excluded dates,
+            // e.g. a closure): only a real common occurrence is a clash
+            LocalDate from = LocalDate.ofEpochDay(Math.max(rule.startDay, startDay));
+            LocalDate to = LocalDate.ofEpochDay(Math.min(rule.endDay, endDay));
+            for (LocalDate date : requested.occurrences(from, to)) {
+                if (rule.recurrence.occursOn(date)) {
+                    return rule.slotId;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Busy rules of the teacher clipped to [from, to]: one row per slot, not one per session
+    public List<TeacherBusyInterval> busyIntervals(Long teacherId, LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+
+        List<TeacherBusyInterval> busy = new ArrayList<>();
+        for (Rule rule : getOrLoad(teacherId)) {
+            if (rule.startDay > toDay) {
+                break;
+            }
+            if (rule.endDay < fromDay || rule.dayMask == 0) {
+                continue;
+            }
+
+            LocalDate start = LocalDate.ofEpochDay(Math.max(rule.startDay, fromDay));
+            LocalDate end = LocalDate.ofEpochDay(Math.min(rule.endDay, toDay));
+            busy.add(TeacherBusyInterval.builder()
+                    .slotId(rule.slotId)
+                    .courseId(rule.courseId)
+                    .centerId(rule.centerId)
+                    .startDate(start)
+                    .endDate(end)
+                    .daysOfWeek(rule.days)
+                    .startTime(rule.startTime)
+                    .endTime(rule.endTime)
+                    .excludedDates(rule.excludedDates.stream()
+                            .filter(date -> !date.isBefore(start) && !date.isAfter(end))
+                            .toList())
+                    .build());
+        }
+        return busy;
+    }
+
+    // Drop the teacher's cached rules once the surrounding transaction completes
+    public void evictTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return;
+        }
+
+        Runnable evict = () -> {
+            versionOf(teacherId).incrementAndGet();
+            teachers.remove(teacherId);
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict.run();
+            }
+        });
+    }
+
+    private List<Rule> getOrLoad(Long teacherId) {
+        List<Rule> rules = teachers.get(teacherId);
+        if (rules != null) {
+            return rules;
+        }
+
+        long version = versionOf(teacherId).get();
+        List<Rule> loaded = load(teacherId);
+        if (versionOf(teacherId).get() == version) {
+            List<Rule> existing = teachers.putIfAbsent(teacherId, loaded);
+            return existing != null ? existing : loaded;
+        }
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Rule> load(Long teacherId) {
+        List<Rule> rules = new ArrayList<>();
+        for (Object[] row : classSlotRepository.findTeacherRuleRows(teacherId)) {
+            LocalDate start = (LocalDate) row[3];
+            LocalDate end = (LocalDate) row[4];
+            LocalTime startTime = (LocalTime) row[5];
+            LocalTime endTime = (LocalTime) row[6];
+            if (start == null || end == null || startTime == null || endTime == null) {
+                continue;
+            }
+
+            int mask = SlotRecurrence.dayMask((Collection<DayOfWeek>) row[8]);
+            if (mask == 0 && row[7] != null) {
+                mask = SlotRecurrence.bit((DayOfWeek) row[7]);
+            }
+
+            rules.add(new Rule((Long) row[0], (Long) row[1], (Long) row[2], start, end, mask,
+                    startTime, endTime, (Set<LocalDate>) row[9]));
+        }
+
+        rules.sort(Comparator.comparingLong(rule -> rule.startDay));
+        // Read-only once published; evictions replace the whole list
+        return List.copyOf(rules);
+    }
+
+    private AtomicLong versionOf(Long teacherId) {
+        return versions.computeIfAbsent(teacherId, id -> new AtomicLong());
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static final class Rule {
+        private final Long slotId;
+        private final Long courseId;
+        private final Long centerId;
+        private final long startDay;
+        private final long endDay;
+        private final int dayMask;
+        private final Set<DayOfWeek> days;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        private final int startMinute;
+        private final int endMinute;
+        private final Set<LocalDate> excludedDates;
+        private final SlotRecurrence recurrence;
+
+        private Rule(Long slotId, Long courseId, Long centerId, LocalDate start, LocalDate end, int dayMask,
+                LocalTime startTime, LocalTime endTime, Set<LocalDate> excludedDates) {
+            this.slotId = slotId;
+            this.courseId = courseId;
+            this.centerId = centerId;
+            this.startDay = start.toEpochDay();
+            this.endDay = end.toEpochDay();
+            this.dayMask = dayMask;
+            this.days = toDays(dayMask);
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.startMinute = toMinute(startTime);
+            this.endMinute = toMinute(endTime);
+            this.excludedDates = excludedDates != null ? excludedDates : Set.of();
+            this.recurrence = SlotRecurrence.of(start, end, dayMask, this.excludedDates);
+        }
+
+        private static Set<DayOfWeek> toDays(int mask) {
+            EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if ((mask & SlotRecurrence.bit(day)) != 0) {
+                    days.add(day);
+                }
+            }
+            return days;
+        }
+    }
+}
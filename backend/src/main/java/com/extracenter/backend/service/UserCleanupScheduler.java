@@ -1,18 +1,27 @@
 package com.extracenter.backend.service;
 
-import com.extracenter.backend.entity.User;
 import com.extracenter.backend.repository.UserRepository;
 import com.extracenter.backend.repository.VerificationTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Nightly cleanup, done in bounded chunks: each chunk of ids is deleted with set-based
+// statements in its own short transaction, so a spam-registration wave never turns into
+// one long transaction holding locks on Users.
 @Component
 public class UserCleanupScheduler {
 
@@ -25,35 +34,127 @@ public class UserCleanupScheduler {
     @Autowired
     private VerificationTokenRepository tokenRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${cleanup.batch-size:500}")
+    private int batchSize;
+
+    private final Counter usersDeleted;
+    private final Counter tokensDeleted;
+    private final Counter failedChunks;
+    private final Timer runTimer;
+
+    public UserCleanupScheduler(MeterRegistry meterRegistry) {
+        this.usersDeleted = meterRegistry.counter("cleanup.users.deleted");
+        this.tokensDeleted = meterRegistry.counter("cleanup.tokens.deleted");
+        this.failedChunks = meterRegistry.counter("cleanup.chunks.failed");
+        this.runTimer = Timer.builder("cleanup.run")
+                .description("Duration of the nightly user/token cleanup")
+                .register(meterRegistry);
+    }
+
     // Run every day at Midnight (00:00:00) server time
     @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional // Ensures the token and user deletions happen cleanly together
     public void cleanupUnverifiedUsers() {
-        logger.info("🧹 Starting daily cleanup of unverified users...");
+        runTimer.record(() -> {
+            logger.info("🧹 Starting daily cleanup of unverified users...");
+
+            // Calculate time: Target users created more than 24 hours ago
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime cutoff = now.minusHours(24);
+            int users = deleteUnverifiedUsers(cutoff);
+
+            // Users first: their tokens go with them, the rest are expired OTPs of other accounts
+            // (those of unverified accounts younger than the cutoff are kept until the account goes)
+            int tokens = purgeExpiredTokens(now, cutoff);
+
+            logger.info("✅ Cleanup complete. Unverified accounts deleted: {}, expired tokens purged: {}", users, tokens);
+        });
+    }
+
+    private int deleteUnverifiedUsers(LocalDateTime cutoffTime) {
+        int total = 0;
+        long afterId = 0L;
+
+        while (true) {
+            List<Long> ids = userRepository.findUnverifiedUserIdsBefore(
+                    cutoffTime, afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return total;
+            }
+            // Move past this chunk even if it fails, so one bad row can't stall the job
+            afterId = ids.get(ids.size() - 1);
 
-        // Calculate time: Target users created more than 24 hours ago
-        LocalDateTime cutoffTime = LocalDateTime.now().minusHours(24);
+            int count;
+            try {
+                count = deleteChunk(ids);
+            } catch (RuntimeException e) {
+                // Someone started using one of these accounts mid-run: retry one row at a time
+                failedChunks.increment();
+                logger.warn("Cleanup chunk ending at user id {} failed ({}), retrying row by row",
+                        afterId, e.getMessage());
+                count = deleteOneByOne(ids);
+            }
 
-        // Fetch the list of users who never verified their email
-        List<User> usersToDelete = userRepository.findUnverifiedUsersBefore(cutoffTime);
+            total += count;
+            usersDeleted.increment(count);
+            logger.debug("Deleted {} unverified users (ids up to {}), {} so far", count, afterId, total);
 
-        if (usersToDelete.isEmpty()) {
-            logger.info("No unverified users found to clean up today.");
-            return;
+            if (ids.size() < batchSize) {
+                return total;
+            }
         }
+    }
 
-        for (User user : usersToDelete) {
-            // 1. Delete Token first
-            // UPDATE: Since we changed findByUser to return Optional<VerificationToken> in
-            // the repository,
-            // we use .ifPresent() to safely delete it if it exists.
-            tokenRepository.findByUser(user).ifPresent(token -> tokenRepository.delete(token));
+    private int deleteChunk(List<Long> ids) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            // 1. Delete Tokens first (FK user_id), then center links, then the users
+            int tokens = tokenRepository.deleteByUserIdIn(ids);
+            userRepository.unlinkCentersByUserIdIn(ids);
+            tokensDeleted.increment(tokens);
+            return userRepository.deleteUnverifiedByIdIn(ids);
+        });
+        return deleted != null ? deleted : 0;
+    }
 
-            // 2. Delete User
-            userRepository.delete(user);
-            logger.debug("Deleted unverified user: {}", user.getEmail());
+    // Each user in its own transaction: only the rows that are really blocked are skipped
+    private int deleteOneByOne(List<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            try {
+                deleted += deleteChunk(List.of(id));
+            } catch (RuntimeException e) {
+                logger.error("Could not delete unverified user {}: {}", id, e.getMessage());
+            }
         }
+        return deleted;
+    }
 
-        logger.info("✅ Cleanup complete. Total unverified accounts deleted: {}", usersToDelete.size());
+    private int purgeExpiredTokens(LocalDateTime now, LocalDateTime cutoff) {
+        int total = 0;
+
+        while (true) {
+            List<Long> ids = tokenRepository.findPurgeableIds(now, cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return total;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> tokenRepository.deleteAllByIdInBatch(ids));
+            } catch (RuntimeException e) {
+                failedChunks.increment();
+                logger.error("Purging expired tokens failed: {}", e.getMessage());
+                return total;
+            }
+
+            total += ids.size();
+            tokensDeleted.increment(ids.size());
+            logger.debug("Purged {} expired tokens so far", total);
+
+            if (ids.size() < batchSize) {
+                return total;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,26 @@
 package com.extracenter.backend.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.extracenter.backend.config.AuthPrincipalCache;
+import com.extracenter.backend.dto.AdminUserFilter;
+import com.extracenter.backend.dto.AdminUserPage;
+import com.extracenter.backend.dto.AdminUserResponse;
 import com.extracenter.backend.dto.ChangePasswordRequest;
 import com.extracenter.backend.dto.CreateStudentRequest;
 import com.extracenter.backend.dto.LoginRequest;
@@ -35,10 +42,22 @@ import com.extracenter.backend.repository.UserRepository;
 import com.extracenter.backend.repository.VerificationTokenRepository;
 import com.extracenter.backend.utils.EmailUtils;
 import com.extracenter.backend.utils.JwtUtils;
+import com.extracenter.backend.utils.SearchText;
 
 @Service
 public class UserService {
 
+    private static final int MIN_SEARCH_LENGTH = 2;
+    // pg_trgm only has trigrams to match from 3 characters on; shorter keywords use the prefix index
+    private static final int MIN_TRIGRAM_LENGTH = 3;
+    // Rows ranked per search at most (per index), however common the keyword is
+    private static final int SEARCH_CANDIDATES = 500;
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final int ADMIN_DEFAULT_PAGE = 100;
+    private static final int ADMIN_MAX_PAGE = 1000;
+    private static final int ADMIN_EXPORT_CHUNK = 1000;
+    private static final int ROSTER_MAX_PAGE = 500;
+
     @Autowired
     private UserRepository userRepository;
     @Autowired
@@ -46,6 +65,8 @@ public class UserService {
     @Autowired
     private VerificationTokenRepository tokenRepository;
     @Autowired
+    private EcmEmailAllocator ecmEmailAllocator;
+    @Autowired
     private EmailService emailService;
     @Autowired
     private CenterRepository centerRepository;
@@ -55,6 +76,10 @@ public class UserService {
     private EnrollmentRepository enrollmentRepository;
     @Autowired
     private JwtUtils jwtUtils;
+    @Autowired
+    private AuthPrincipalCache authPrincipalCache;
+    @Autowired
+    private StudentTimetableIndex studentTimetableIndex;
 
     @Transactional(readOnly = true)
     public UserProfileResponse getProfile(Long id) {
@@ -168,6 +193,7 @@ public class UserService {
         boolean newStatus = !targetUser.isLocked();
         targetUser.setLocked(newStatus);
         userRepository.save(targetUser);
+        authPrincipalCache.evict(targetUserId);
 
         return newStatus ? "Account has been locked." : "Account has been unlocked.";
     }
@@ -206,33 +232,116 @@ public class UserService {
         return userRepository.save(student);
     }
 
+    // Admin user list, one keyset page after afterId (0 / null = first page)
     @Transactional(readOnly = true)
-    public List<TeacherStudentResponse> getTeacherVisibleStudents(Long teacherId, boolean activeOnly) {
-        User teacher = getAuthorizedTeacherActor(teacherId);
+    public AdminUserPage getAdminUserPage(AdminUserFilter filter, Long afterId, Integer size) {
+        int pageSize = size == null ? ADMIN_DEFAULT_PAGE : Math.max(1, Math.min(size, ADMIN_MAX_PAGE));
+
+        // One extra row tells whether there is a next page
+        List<AdminUserResponse> rows = findAdminRows(filter, afterId != null ? afterId : 0L, pageSize + 1);
+
+        Long nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = rows.get(pageSize - 1).getId();
+        }
+
+        return AdminUserPage.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        if (!activeOnly) {
-            return userRepository.findRolledOutStudentsByCreatorTeacherId(teacherId).stream()
-                    .sorted(Comparator.comparing(User::getLastName, String.CASE_INSENSITIVE_ORDER)
-                            .thenComparing(User::getFirstName, String.CASE_INSENSITIVE_ORDER))
-                    .map(student -> toTeacherStudentResponse(student, teacherId))
-                    .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Map<String, Long> getAdminUserCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : userRepository.countGroupedByRoleName()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    // Full export: walks the table page by page (each page its own short read) and hands every
+    // chunk to the consumer, so the caller can stream rows out without holding them all
+    public void forEachAdminUserChunk(AdminUserFilter filter, Consumer<List<AdminUserResponse>> consumer) {
+        long afterId = 0L;
+        while (true) {
+            List<AdminUserResponse> chunk = findAdminRows(filter, afterId, ADMIN_EXPORT_CHUNK);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            consumer.accept(chunk);
+            if (chunk.size() < ADMIN_EXPORT_CHUNK) {
+                return;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
         }
+    }
+
+    private List<AdminUserResponse> findAdminRows(AdminUserFilter filter, long afterId, int limit) {
+        String role = filter.getRole() == null || filter.getRole().isBlank()
+                ? null
+                : filter.getRole().trim().toUpperCase();
+        LocalDateTime createdFrom = filter.getCreatedFrom() != null ? filter.getCreatedFrom().atStartOfDay() : null;
+        LocalDateTime createdTo = filter.getCreatedTo() != null ? filter.getCreatedTo().plusDays(1).atStartOfDay() : null;
+        String q = filter.getQ() != null ? SearchText.normalize(filter.getQ()) : "";
+        String contains = q.isEmpty() ? null : "%" + SearchText.escapeLike(q) + "%";
 
-        Map<Long, User> visibleStudents = new LinkedHashMap<>();
+        return userRepository.findAdminPage(afterId, role, filter.getEnabled(), filter.getLocked(),
+                createdFrom, createdTo, contains, PageRequest.of(0, limit));
+    }
 
-        userRepository.findActiveStudentsByCreatorTeacherId(teacherId)
-            .forEach(student -> visibleStudents.put(student.getId(), student));
+    // Top-K students matching the keyword ("nguyen van", "Nguyễn Văn", phone or email fragment)
+    @Transactional(readOnly = true)
+    public List<User> searchStudents(String keyword, int limit) {
+        String normalized = SearchText.normalize(keyword);
+        // 1 ký tự khớp gần như mọi người -> chưa tìm
+        if (normalized.length() < MIN_SEARCH_LENGTH) {
+            return List.of();
+        }
 
-        enrollmentRepository.findActiveStudentsByTeacherId(teacher.getId())
-            .forEach(student -> visibleStudents.put(student.getId(), student));
+        int topK = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        String escaped = SearchText.escapeLike(normalized);
+        if (normalized.length() < MIN_TRIGRAM_LENGTH) {
+            return userRepository.searchStudentsByPrefix(escaped + "%", SEARCH_CANDIDATES, topK);
+        }
+        return userRepository.searchStudents(normalized, escaped + "%", "%" + escaped + "%", SEARCH_CANDIDATES, topK);
+    }
 
-        return visibleStudents.values().stream()
-                .sorted(Comparator.comparing(User::getLastName, String.CASE_INSENSITIVE_ORDER)
-                        .thenComparing(User::getFirstName, String.CASE_INSENSITIVE_ORDER))
-                .map(student -> toTeacherStudentResponse(student, teacherId))
+    // Roster = created by the teacher (+ enrolled in their courses when active), one native query.
+    // page/size are optional (no size = whole roster); sort = name (default) | email | created, "-" prefix = desc
+    @Transactional(readOnly = true)
+    public List<TeacherStudentResponse> getTeacherVisibleStudents(
+            Long teacherId,
+            boolean activeOnly,
+            Integer page,
+            Integer size,
+            String sort) {
+        getAuthorizedTeacherActor(teacherId);
+
+        int limit = size == null ? Integer.MAX_VALUE : Math.max(1, Math.min(size, ROSTER_MAX_PAGE));
+        long offset = size == null || page == null ? 0L : (long) Math.max(0, page) * limit;
+
+        return userRepository.findTeacherRosterRows(teacherId, activeOnly, toRosterSortKey(sort), limit, offset)
+                .stream()
+                .map(this::toTeacherStudentResponse)
                 .collect(Collectors.toList());
     }
 
+    private static String toRosterSortKey(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return "name_asc";
+        }
+
+        String value = sort.trim().toLowerCase();
+        boolean descending = value.startsWith("-");
+        String field = descending ? value.substring(1) : value;
+        if (!field.equals("name") && !field.equals("email") && !field.equals("created")) {
+            throw new RuntimeException("Unsupported sort: " + sort + " (use name, email or created).");
+        }
+        return field + (descending ? "_desc" : "_asc");
+    }
+
     @Transactional
     public User updateTeacherManagedStudent(Long teacherId, Long studentId, CreateStudentRequest request) {
         User student = getActiveOwnedStudent(teacherId, studentId);
@@ -266,6 +375,7 @@ public class UserService {
 
         student.setEnabled(true);
         userRepository.save(student);
+        authPrincipalCache.evict(student.getId());
         return "Student restored successfully.";
     }
 
@@ -288,7 +398,9 @@ public class UserService {
         User user = getAccessibleUser(id);
 
         user.setEnabled(false); // Locks the user out of logging in
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        authPrincipalCache.evict(id);
+        return saved;
     }
 
     // 3. Resend OTP to the user's personal email
@@ -447,6 +559,7 @@ public class UserService {
             user.setEnabled(true);
             userRepository.save(user);
             tokenRepository.delete(vt);
+            authPrincipalCache.evict(user.getId());
             return "Account reactivated.";
         } else {
             String finalEmail = generateUniqueEcmEmail(user.getFirstName(), user.getLastName());
@@ -456,6 +569,7 @@ public class UserService {
 
             userRepository.save(user);
             tokenRepository.delete(vt);
+            authPrincipalCache.evict(user.getId());
 
             emailService.sendCredentialEmail(user.getPersonalEmail(), finalEmail, "ecm123");
             return "Success! Your ECM email is: " + finalEmail;
@@ -468,15 +582,8 @@ public class UserService {
     }
 
     private String generateUniqueEcmEmail(String firstName, String lastName) {
-        String prefix = EmailUtils.generateEmailPrefix(firstName, lastName);
-        String finalEmail = prefix + "@ecm.edu.vn";
-
-        int count = 0;
-        while (userRepository.existsByEmail(finalEmail)) {
-            count++;
-            finalEmail = prefix + count + "@ecm.edu.vn";
-        }
-        return finalEmail;
+        // One counter round trip instead of probing prefix, prefix1, prefix2... with existsByEmail
+        return ecmEmailAllocator.allocate(EmailUtils.generateEmailPrefix(firstName, lastName));
     }
 
     @Transactional
@@ -488,9 +595,11 @@ public class UserService {
 
     private String rollOutStudent(User student) {
         enrollmentRepository.deleteByStudentId(student.getId());
+        studentTimetableIndex.evictStudent(student.getId());
         student.getConnectedCenters().clear();
         student.setEnabled(false);
         userRepository.save(student);
+        authPrincipalCache.evict(student.getId());
         return "Student rolled out successfully.";
     }
 
@@ -574,24 +683,32 @@ public class UserService {
         return student;
     }
 
-    private TeacherStudentResponse toTeacherStudentResponse(User student, Long teacherId) {
-        List<TeacherStudentResponse.ConnectedCenterResponse> centers = student.getConnectedCenters().stream()
-                .map(center -> new TeacherStudentResponse.ConnectedCenterResponse(center.getId(), center.getName()))
-                .sorted(Comparator.comparing(TeacherStudentResponse.ConnectedCenterResponse::getName,
-                        String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
-
-        boolean canManage = student.getCreatedByTeacher() != null
-                && teacherId.equals(student.getCreatedByTeacher().getId());
+    // Row layout: see UserRepository.findTeacherRosterRows
+    private TeacherStudentResponse toTeacherStudentResponse(Object[] row) {
+        List<TeacherStudentResponse.ConnectedCenterResponse> centers = new ArrayList<>();
+        if (row[7] != null) {
+            String[] ids = ((String) row[7]).split(",");
+            String[] names = ((String) row[8]).split(String.valueOf((char) 31), -1);
+            for (int i = 0; i < ids.length; i++) {
+                centers.add(new TeacherStudentResponse.ConnectedCenterResponse(Long.valueOf(ids[i]), names[i]));
+            }
+        }
 
         return new TeacherStudentResponse(
-                student.getId(),
-                student.getFirstName(),
-                student.getLastName(),
-                student.getEmail(),
-                student.getPhoneNumber(),
-                student.getDateOfBirth(),
-                canManage,
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                toLocalDate(row[5]),
+                Boolean.TRUE.equals(row[6]),
                 centers);
     }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
 }
\ No newline at end of file
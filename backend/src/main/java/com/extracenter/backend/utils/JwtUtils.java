@@ -17,8 +17,13 @@ public class JwtUtils {
     // Thời gian hết hạn: 24 giờ (tính bằng mili giây)
     private static final long EXPIRATION_TIME = 86400000;
 
+    // Key + parser dựng 1 lần, dùng lại cho mọi request
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        return signingKey;
     }
 
     // 1. Tạo Token từ User
@@ -33,33 +38,32 @@ public class JwtUtils {
                 .compact();
     }
 
-    // 2. Lấy Email từ Token
-    public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-
-    // 3. Kiểm tra Token có hợp lệ không
-    public boolean validateToken(String token) {
+    // 2. Verify + parse token 1 lần duy nhất. Trả về null nếu token không hợp lệ
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             System.out.println("Token không hợp lệ: " + e.getMessage());
-            return false;
+            return null;
         }
     }
 
+    // 3. Lấy Email từ Token
+    public String extractEmail(String token) {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    // 4. Kiểm tra Token có hợp lệ không
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
     public String extractRole(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
+        return parser.parseClaimsJws(token).getBody().get("role", String.class);
+    }
+
+    public Long extractUserId(Claims claims) {
+        Object userId = claims.get("userId");
+        return userId instanceof Number ? ((Number) userId).longValue() : null;
     }
-}
\ No newline at end of file
+}
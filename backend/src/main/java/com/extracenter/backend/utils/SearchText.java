@@ -0,0 +1,37 @@
+package com.extracenter.backend.utils;
+
+import java.util.Locale;
+
+// Text normalized for the trigram student search: no accents ("Nguyễn" -> "nguyen"),
+// lower case, single spaces. The same function is used for the stored column and the keyword.
+public final class SearchText {
+
+    private SearchText() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return EmailUtils.removeAccent(text).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    // "lastName firstName | email | phone": the full name in the order users type it, then contacts
+    public static String forUser(String firstName, String lastName, String email, String phoneNumber) {
+        StringBuilder text = new StringBuilder(normalize((lastName != null ? lastName : "") + " "
+                + (firstName != null ? firstName : "")));
+        if (email != null && !email.isBlank()) {
+            text.append(" | ").append(normalize(email));
+        }
+        if (phoneNumber != null && !phoneNumber.isBlank()) {
+            text.append(" | ").append(normalize(phoneNumber));
+        }
+        return text.toString();
+    }
+
+    // LIKE metacharacters in user input are matched literally
+    public static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
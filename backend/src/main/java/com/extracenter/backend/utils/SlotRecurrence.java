@@ -0,0 +1,172 @@
+package com.extracenter.backend.utils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.extracenter.backend.entity.ClassSlot;
+
+// "Which dates does this ClassSlot run on", compiled once:
+// date range as epoch days + weekday bitmask (bit 0 = Monday) + sorted excluded dates.
+// occurrences() jumps from one matching weekday to the next, so expanding a slot
+// costs O(occurrences) instead of walking every day of the range.
+public final class SlotRecurrence {
+
+    private static final long[] NO_EXCLUSIONS = new long[0];
+
+    // NEXT_DELTA[mask][weekday] = days from weekday to the next weekday in mask (0 if weekday itself matches)
+    private static final byte[][] NEXT_DELTA = new byte[128][7];
+
+    static {
+        for (int mask = 1; mask < 128; mask++) {
+            for (int weekday = 0; weekday < 7; weekday++) {
+                int delta = 0;
+                while ((mask & (1 << ((weekday + delta) % 7))) == 0) {
+                    delta++;
+                }
+                NEXT_DELTA[mask][weekday] = (byte) delta;
+            }
+        }
+    }
+
+    private final long startDay;
+    private final long endDay;
+    private final int dayMask;
+    private final long[] excludedDays;
+
+    private SlotRecurrence(long startDay, long endDay, int dayMask, long[] excludedDays) {
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.dayMask = dayMask;
+        this.excludedDays = excludedDays;
+    }
+
+    public static SlotRecurrence of(ClassSlot slot) {
+        return of(slot.getStartDate(), slot.getEndDate(), effectiveDayMask(slot), slot.getExcludedDates());
+    }
+
+    public static SlotRecurrence of(LocalDate startDate, LocalDate endDate, int dayMask,
+            Collection<LocalDate> excludedDates) {
+        if (startDate == null || endDate == null) {
+            return new SlotRecurrence(0, -1, 0, NO_EXCLUSIONS);
+        }
+
+        long[] excluded = NO_EXCLUSIONS;
+        if (excludedDates != null && !excludedDates.isEmpty()) {
+            excluded = excludedDates.stream().mapToLong(LocalDate::toEpochDay).sorted().toArray();
+        }
+
+        return new SlotRecurrence(startDate.toEpochDay(), endDate.toEpochDay(), dayMask, excluded);
+    }
+
+    // daysOfWeek, falling back to the legacy single dayOfWeek column when the set is empty
+    public static int effectiveDayMask(ClassSlot slot) {
+        int mask = dayMask(slot.getDaysOfWeek());
+        if (mask == 0 && slot.getDayOfWeek() != null) {
+            mask = bit(slot.getDayOfWeek());
+        }
+        return mask;
+    }
+
+    public static int dayMask(Collection<DayOfWeek> days) {
+        int mask = 0;
+        if (days != null) {
+            for (DayOfWeek day : days) {
+                mask |= bit(day);
+            }
+        }
+        return mask;
+    }
+
+    public static int bit(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+
+    public int getDayMask() {
+        return dayMask;
+    }
+
+    public boolean coversDate(LocalDate date) {
+        long day = date.toEpochDay();
+        return day >= startDay && day <= endDay;
+    }
+
+    public boolean runsOnWeekday(DayOfWeek day) {
+        return (dayMask & bit(day)) != 0;
+    }
+
+    public boolean isExcluded(LocalDate date) {
+        return Arrays.binarySearch(excludedDays, date.toEpochDay()) >= 0;
+    }
+
+    public boolean occursOn(LocalDate date) {
+        return coversDate(date) && runsOnWeekday(date.getDayOfWeek()) && !isExcluded(date);
+    }
+
+    // Lazy iteration over the occurrences inside [from, to] (clamped to the slot's own range)
+    public Iterable<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        long first = Math.max(startDay, from.toEpochDay());
+        long last = Math.min(endDay, to.toEpochDay());
+        return () -> new OccurrenceIterator(first, last);
+    }
+
+    public Iterable<LocalDate> occurrences() {
+        return () -> new OccurrenceIterator(startDay, endDay);
+    }
+
+    // 1970-01-01 (epoch day 0) was a Thursday; 0 = Monday
+    private static int weekdayIndex(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDate> {
+        private final long last;
+        private long next;
+        private int exclusionCursor;
+
+        private OccurrenceIterator(long first, long last) {
+            this.last = last;
+            int position = Arrays.binarySearch(excludedDays, first);
+            this.exclusionCursor = position >= 0 ? position : -position - 1;
+            this.next = dayMask == 0 ? last + 1 : advance(first);
+        }
+
+        // First matching, non-excluded day >= day
+        private long advance(long day) {
+            while (day <= last) {
+                day += NEXT_DELTA[dayMask][weekdayIndex(day)];
+                if (day > last) {
+                    break;
+                }
+
+                while (exclusionCursor < excludedDays.length && excludedDays[exclusionCursor] < day) {
+                    exclusionCursor++;
+                }
+                if (exclusionCursor < excludedDays.length && excludedDays[exclusionCursor] == day) {
+                    day++;
+                    continue;
+                }
+                return day;
+            }
+            return last + 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next <= last;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (next > last) {
+                throw new NoSuchElementException();
+            }
+            LocalDate date = LocalDate.ofEpochDay(next);
+            next = advance(next + 1);
+            return date;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.extracenter.backend.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+// DayOfWeekMaskConverter (days_mask) and ExcludedDatesConverter (excluded_days)
+class ClassSlotConvertersTest {
+
+    private final DayOfWeekMaskConverter days = new DayOfWeekMaskConverter();
+    private final ExcludedDatesConverter excluded = new ExcludedDatesConverter();
+
+    @Test
+    void dayMaskRoundTrip() {
+        Set<DayOfWeek> monAndSun = EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.SUNDAY);
+
+        assertThat(days.convertToDatabaseColumn(monAndSun)).isEqualTo(1 | 64);
+        assertThat(days.convertToEntityAttribute(1 | 64)).containsExactlyInAnyOrderElementsOf(monAndSun);
+        assertThat(days.convertToEntityAttribute(days.convertToDatabaseColumn(EnumSet.allOf(DayOfWeek.class))))
+                .hasSize(7);
+    }
+
+    @Test
+    void dayMaskOfNullOrEmptyIsZeroAndReadsBackEmpty() {
+        assertThat(days.convertToDatabaseColumn(null)).isZero();
+        assertThat(days.convertToDatabaseColumn(EnumSet.noneOf(DayOfWeek.class))).isZero();
+        assertThat(days.convertToEntityAttribute(null)).isEmpty();
+        assertThat(days.convertToEntityAttribute(0)).isEmpty();
+    }
+
+    @Test
+    void dayMaskReadsBackAnUnmodifiableSet() {
+        Set<DayOfWeek> read = days.convertToEntityAttribute(2);
+
+        assertThatThrownBy(() -> read.add(DayOfWeek.MONDAY)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void excludedDatesRoundTripSortedAndDistinct() {
+        Set<LocalDate> dates = Set.of(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 1, 1), LocalDate.of(1969, 12, 31));
+
+        byte[] packed = excluded.convertToDatabaseColumn(dates);
+
+        assertThat(packed).hasSize(3 * Integer.BYTES);
+        assertThat(excluded.convertToEntityAttribute(packed))
+                .containsExactly(LocalDate.of(1969, 12, 31), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 5, 1));
+    }
+
+    @Test
+    void excludedDatesOfNullOrEmptyAreStoredAsNull() {
+        assertThat(excluded.convertToDatabaseColumn(null)).isNull();
+        assertThat(excluded.convertToDatabaseColumn(Set.of())).isNull();
+    }
+
+    @Test
+    void excludedDatesReadBackEmptyFromNullOrEmptyColumn() {
+        assertThat(excluded.convertToEntityAttribute(null)).isEmpty();
+        assertThat(excluded.convertToEntityAttribute(new byte[0])).isEmpty();
+    }
+
+    @Test
+    void classSlotNormalizesNullCollectionsToEmpty() {
+        ClassSlot slot = new ClassSlot();
+        slot.setDaysOfWeek(null);
+        slot.setExcludedDates(null);
+
+        assertThat(slot.getDaysOfWeek()).isEmpty();
+        assertThat(slot.getExcludedDates()).isEmpty();
+        assertThat(excluded.convertToDatabaseColumn(slot.getExcludedDates())).isNull();
+    }
+}
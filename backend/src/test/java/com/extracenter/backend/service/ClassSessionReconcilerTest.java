@@ -0,0 +1,298 @@
+package com.extracenter.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.extracenter.backend.entity.ClassSession;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.entity.Course;
+import com.extracenter.backend.repository.ClassSessionRepository;
+
+class ClassSessionReconcilerTest {
+
+    // Week of Monday 2025-01-06
+    private static final LocalDate MON = LocalDate.of(2025, 1, 6);
+    private static final LocalDate TUE = MON.plusDays(1);
+    private static final LocalDate WED = MON.plusDays(2);
+    private static final LocalDate THU = MON.plusDays(3);
+    private static final LocalDate SUN = MON.plusDays(6);
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN_THIRTY = LocalTime.of(10, 30);
+
+    private ClassSessionRepository repository;
+    private ClassSessionReconciler reconciler;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClassSessionRepository.class);
+        reconciler = new ClassSessionReconciler();
+        ReflectionTestUtils.setField(reconciler, "classSessionRepository", repository);
+        // "Today" is before the test weeks unless a test moves it
+        today(LocalDate.of(2025, 1, 1));
+
+        course = new Course();
+        course.setId(10L);
+    }
+
+    @Test
+    void keepsMatchingSessionsUntouched() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), NINE, TEN_THIRTY);
+        givenLinked(slot, session(1L, MON, NINE, TEN_THIRTY, slot), session(2L, WED, NINE, TEN_THIRTY, slot));
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        verify(repository, never()).saveAll(anyList());
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void movesTimeOfKeptSessionsInPlace() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(14, 0), LocalTime.of(15, 30));
+        ClassSession monday = session(1L, MON, NINE, TEN_THIRTY, slot);
+        givenLinked(slot, monday);
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0)).isSameAs(monday);
+        assertThat(monday.getId()).isEqualTo(1L);
+        assertThat(monday.getStartTime()).isEqualTo(LocalTime.of(14, 0));
+        assertThat(monday.getEndTime()).isEqualTo(LocalTime.of(15, 30));
+    }
+
+    @Test
+    void insertsMissingOccurrencesAndRelinksMatchingLegacySessions() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), NINE, TEN_THIRTY);
+        givenLinked(slot);
+        ClassSession legacyMonday = session(7L, MON, NINE, TEN_THIRTY, null);
+        ClassSession legacyOtherTime = session(8L, WED, LocalTime.of(13, 0), LocalTime.of(14, 0), null);
+        when(repository.findByCourseIdAndClassSlotIsNullAndDateBetween(10L, MON, WED))
+                .thenReturn(List.of(legacyMonday, legacyOtherTime));
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).hasSize(2);
+        assertThat(saved.get(0)).isSameAs(legacyMonday);
+        assertThat(legacyMonday.getClassSlot()).isSameAs(slot);
+
+        ClassSession created = saved.get(1);
+        assertThat(created.getId()).isNull();
+        assertThat(created.getDate()).isEqualTo(WED);
+        assertThat(created.getStartTime()).isEqualTo(NINE);
+        assertThat(created.getStatus()).isEqualTo("SCHEDULED");
+        assertThat(created.getClassSlot()).isSameAs(slot);
+        assertThat(legacyOtherTime.getClassSlot()).isNull();
+    }
+
+    @Test
+    void deletesDroppedSessionsButOnlyUnlinksOnesWithHistory() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY), NINE, TEN_THIRTY);
+        ClassSession monday = session(1L, MON, NINE, TEN_THIRTY, slot);
+        ClassSession tuesdayWithAttendance = session(2L, TUE, NINE, TEN_THIRTY, slot);
+        ClassSession thursday = session(3L, THU, NINE, TEN_THIRTY, slot);
+        givenLinked(slot, monday, tuesdayWithAttendance, thursday);
+        when(repository.findReferencedIds(anyCollection())).thenReturn(List.of(2L));
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0)).isSameAs(tuesdayWithAttendance);
+        assertThat(tuesdayWithAttendance.getClassSlot()).isNull();
+        assertThat(deletedIds()).containsExactly(3L);
+        assertThat(monday.getClassSlot()).isSameAs(slot);
+    }
+
+    @Test
+    void weekdayChangeMovesSessionsWithinTheirWeek() {
+        // Slot moved from Monday to Tuesday
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.TUESDAY), NINE, TEN_THIRTY);
+        ClassSession mondayWithAttendance = session(1L, MON, NINE, TEN_THIRTY, slot);
+        ClassSession nextMonday = session(2L, MON.plusWeeks(1), NINE, TEN_THIRTY, slot);
+        givenLinked(slot, mondayWithAttendance, nextMonday);
+        when(repository.findReferencedIds(anyCollection())).thenReturn(List.of(1L));
+
+        reconciler.reconcile(slot, MON, MON.plusWeeks(1).plusDays(6));
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).containsExactly(mondayWithAttendance, nextMonday);
+        assertThat(mondayWithAttendance.getId()).isEqualTo(1L);
+        assertThat(mondayWithAttendance.getDate()).isEqualTo(TUE);
+        assertThat(mondayWithAttendance.getClassSlot()).isSameAs(slot);
+        assertThat(nextMonday.getDate()).isEqualTo(TUE.plusWeeks(1));
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void sessionWithHistoryTakesTheOnlyFreeDateOfItsWeek() {
+        // Monday + Thursday -> Wednesday only: one session moves, the other goes
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.WEDNESDAY), NINE, TEN_THIRTY);
+        ClassSession monday = session(1L, MON, NINE, TEN_THIRTY, slot);
+        ClassSession thursdayWithAttendance = session(2L, THU, NINE, TEN_THIRTY, slot);
+        givenLinked(slot, monday, thursdayWithAttendance);
+        when(repository.findReferencedIds(anyCollection())).thenReturn(List.of(2L));
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        assertThat(savedSessions()).containsExactly(thursdayWithAttendance);
+        assertThat(thursdayWithAttendance.getDate()).isEqualTo(WED);
+        assertThat(deletedIds()).containsExactly(1L);
+    }
+
+    @Test
+    void cancelledSessionOfAClosedDateIsNeitherMovedNorDeleted() {
+        // Monday was closed (excluded + CANCELLED), then the slot moves to Tuesday
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.TUESDAY), NINE, TEN_THIRTY);
+        slot.setExcludedDates(Set.of(MON));
+        ClassSession closedMonday = session(1L, MON, NINE, TEN_THIRTY, slot);
+        closedMonday.setStatus("CANCELLED");
+        closedMonday.setNote("Center closed");
+        givenLinked(slot, closedMonday);
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0)).isNotSameAs(closedMonday);
+        assertThat(saved.get(0).getDate()).isEqualTo(TUE);
+        assertThat(closedMonday.getDate()).isEqualTo(MON);
+        assertThat(closedMonday.getNote()).isEqualTo("Center closed");
+        assertThat(closedMonday.getClassSlot()).isSameAs(slot);
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void duplicateSessionOnTheSameDateIsTreatedAsStale() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY), NINE, TEN_THIRTY);
+        givenLinked(slot, session(1L, MON, NINE, TEN_THIRTY, slot), session(2L, MON, NINE, TEN_THIRTY, slot));
+        when(repository.findReferencedIds(anyCollection())).thenReturn(List.of());
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        assertThat(deletedIds()).containsExactly(2L);
+    }
+
+    @Test
+    void midCourseWeekdayChangeOnlyMovesFutureSessions() {
+        // Today is Thursday of the first week; Monday -> Tuesday from now on
+        today(THU);
+        LocalDate end = MON.plusWeeks(2).minusDays(1);
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.TUESDAY), NINE, TEN_THIRTY);
+        ClassSession nextMonday = session(2L, MON.plusWeeks(1), NINE, TEN_THIRTY, slot);
+        when(repository.findByClassSlotIdAndDateBetween(5L, THU, end))
+                .thenReturn(new ArrayList<>(List.of(nextMonday)));
+        when(repository.findReferencedIds(anyCollection())).thenReturn(List.of());
+
+        reconciler.reconcile(slot, MON, end);
+
+        // Past Monday (held, with attendance) is not even loaded
+        verify(repository, never()).findByClassSlotIdAndDateBetween(eq(5L), eq(MON), any());
+        assertThat(savedSessions()).containsExactly(nextMonday);
+        assertThat(nextMonday.getDate()).isEqualTo(TUE.plusWeeks(1));
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void windowEntirelyInThePastDoesNothing() {
+        today(MON.plusWeeks(1));
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.TUESDAY), NINE, TEN_THIRTY);
+
+        reconciler.reconcile(slot, MON, SUN);
+
+        verify(repository, never()).findByClassSlotIdAndDateBetween(any(), any(), any());
+    }
+
+    @Test
+    void onlyLooksInsideTheWindow() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), NINE, TEN_THIRTY);
+        when(repository.findByClassSlotIdAndDateBetween(5L, WED, WED)).thenReturn(new ArrayList<>());
+
+        reconciler.reconcile(slot, WED, WED);
+
+        List<ClassSession> saved = savedSessions();
+        assertThat(saved).extracting(ClassSession::getDate).containsExactly(WED);
+    }
+
+    @Test
+    void emptyOrInvertedWindowDoesNothing() {
+        ClassSlot slot = slot(EnumSet.of(DayOfWeek.MONDAY), NINE, TEN_THIRTY);
+
+        reconciler.reconcile(slot, WED, MON);
+        reconciler.reconcile(slot, null, MON);
+
+        verify(repository, never()).findByClassSlotIdAndDateBetween(any(), any(), any());
+    }
+
+    private void today(LocalDate date) {
+        ReflectionTestUtils.setField(reconciler, "clock",
+                Clock.fixed(date.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private ClassSlot slot(EnumSet<DayOfWeek> days, LocalTime start, LocalTime end) {
+        ClassSlot slot = new ClassSlot();
+        slot.setId(5L);
+        slot.setCourse(course);
+        slot.setDaysOfWeek(days);
+        slot.setStartDate(MON);
+        slot.setEndDate(LocalDate.of(2025, 3, 31));
+        slot.setStartTime(start);
+        slot.setEndTime(end);
+        return slot;
+    }
+
+    private ClassSession session(Long id, LocalDate date, LocalTime start, LocalTime end, ClassSlot slot) {
+        ClassSession session = new ClassSession();
+        session.setId(id);
+        session.setCourse(course);
+        session.setDate(date);
+        session.setStartTime(start);
+        session.setEndTime(end);
+        session.setClassSlot(slot);
+        return session;
+    }
+
+    private void givenLinked(ClassSlot slot, ClassSession... sessions) {
+        when(repository.findByClassSlotIdAndDateBetween(eq(slot.getId()), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(sessions)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ClassSession> savedSessions() {
+        ArgumentCaptor<List<ClassSession>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deletedIds() {
+        ArgumentCaptor<List<Long>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).deleteAllByIdInBatch(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,233 @@
+package com.extracenter.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.extracenter.backend.entity.MailOutbox;
+import com.extracenter.backend.repository.MailOutboxRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Delivers outbox rows through a real JavaMailSenderImpl to an in-process SMTP stand-in
+class MailDispatcherTest {
+
+    private SmtpStandIn smtp;
+    private MailOutboxRepository repository;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtp.port());
+        Properties props = new Properties();
+        props.put("mail.smtp.timeout", "5000");
+        props.put("mail.smtp.connectiontimeout", "5000");
+        sender.setJavaMailProperties(props);
+
+        repository = mock(MailOutboxRepository.class);
+
+        dispatcher = new MailDispatcher(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "mailOutboxRepository", repository);
+        ReflectionTestUtils.setField(dispatcher, "mailSender", sender);
+        ReflectionTestUtils.setField(dispatcher, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(dispatcher, "senderEmail", "noreply@ecm.test");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "claimLeaseSeconds", 600L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void deliversClaimedMailsAndClearsTheirBody() {
+        MailOutbox otp = mail(1L, "student@example.com", "Your OTP is 123456");
+        MailOutbox credentials = mail(2L, "teacher@example.com", "Password: ecm123");
+        givenDue(otp, credentials);
+
+        dispatcher.drain();
+
+        verify(repository).markSending(eq(List.of(1L, 2L)), any());
+        assertThat(smtp.recipients()).containsExactly("student@example.com", "teacher@example.com");
+        assertThat(smtp.messages().get(0)).contains("Your OTP is 123456");
+
+        assertThat(otp.getStatus()).isEqualTo(MailOutbox.SENT);
+        assertThat(otp.getSentAt()).isNotNull();
+        assertThat(otp.getBody()).isNull();
+        assertThat(credentials.getStatus()).isEqualTo(MailOutbox.SENT);
+        assertThat(credentials.getBody()).isNull();
+    }
+
+    @Test
+    void sweepDrainsOnTheMailExecutorNotTheSchedulerThread() {
+        List<Runnable> submitted = new ArrayList<>();
+        ReflectionTestUtils.setField(dispatcher, "mailExecutor", (TaskExecutor) submitted::add);
+        givenDue(mail(1L, "student@example.com", "Your OTP is 123456"));
+
+        dispatcher.sweep();
+
+        verify(repository, never()).lockDueIds(any(), anyInt());
+        assertThat(submitted).hasSize(1);
+
+        submitted.get(0).run();
+
+        assertThat(smtp.recipients()).containsExactly("student@example.com");
+    }
+
+    @Test
+    void rejectedRecipientIsRescheduledAndKeepsItsBody() {
+        MailOutbox ok = mail(1L, "student@example.com", "Your OTP is 123456");
+        MailOutbox bounced = mail(2L, "reject@example.com", "Your OTP is 654321");
+        givenDue(ok, bounced);
+
+        dispatcher.drain();
+
+        assertThat(smtp.recipients()).containsExactly("student@example.com");
+        assertThat(ok.getStatus()).isEqualTo(MailOutbox.SENT);
+
+        assertThat(bounced.getStatus()).isEqualTo(MailOutbox.PENDING);
+        assertThat(bounced.getAttempts()).isEqualTo(1);
+        assertThat(bounced.getLastError()).isNotBlank();
+        assertThat(bounced.getBody()).isEqualTo("Your OTP is 654321");
+        assertThat(bounced.getNextAttemptAt()).isAfter(bounced.getCreatedDate());
+    }
+
+    private void givenDue(MailOutbox... mails) {
+        List<Long> ids = new ArrayList<>();
+        for (MailOutbox mail : mails) {
+            ids.add(mail.getId());
+        }
+        when(repository.lockDueIds(any(), anyInt())).thenReturn(ids, List.of());
+        when(repository.findAllById(ids)).thenReturn(List.of(mails));
+    }
+
+    private static MailOutbox mail(Long id, String recipient, String body) {
+        MailOutbox mail = new MailOutbox(recipient, "[ECM] Test", body);
+        mail.setId(id);
+        return mail;
+    }
+
+    // Minimal SMTP server: accepts everything except recipients starting with "reject@"
+    private static final class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket server;
+        private final List<String> recipients = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+        private SmtpStandIn() throws IOException {
+            server = new ServerSocket(0);
+            Thread thread = new Thread(this::serve, "smtp-stand-in");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private int port() {
+            return server.getLocalPort();
+        }
+
+        private List<String> recipients() {
+            return recipients;
+        }
+
+        private List<String> messages() {
+            return messages;
+        }
+
+        private void serve() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    session(socket);
+                } catch (IOException e) {
+                    // Closed by the test
+                }
+            }
+        }
+
+        private void session(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP stand-in");
+
+            String pending = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM")) {
+                    pending = null;
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO")) {
+                    String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                    if (address.startsWith("reject@")) {
+                        reply(out, "550 No such user");
+                    } else {
+                        pending = address;
+                        reply(out, "250 OK");
+                    }
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line).append('\n');
+                    }
+                    recipients.add(pending);
+                    messages.add(data.toString());
+                    reply(out, "250 OK queued");
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // RSET, NOOP ...
+                    reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
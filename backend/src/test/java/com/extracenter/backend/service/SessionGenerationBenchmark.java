@@ -0,0 +1,132 @@
+package com.extracenter.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.extracenter.backend.entity.Center;
+import com.extracenter.backend.entity.ClassSlot;
+import com.extracenter.backend.entity.Course;
+import com.extracenter.backend.entity.User;
+import com.extracenter.backend.repository.CenterRepository;
+import com.extracenter.backend.repository.ClassSlotRepository;
+import com.extracenter.backend.repository.CourseRepository;
+import com.extracenter.backend.repository.RoleRepository;
+import com.extracenter.backend.repository.UserRepository;
+import com.extracenter.backend.utils.SlotRecurrence;
+
+import jakarta.persistence.EntityManager;
+
+// Insert throughput of CourseService.generateClassSessions for 12-month courses.
+// Not picked up by the default surefire run (no *Test suffix); needs the same database as
+// BackendApplicationTests and rolls everything back:
+//   DB_URL=... DB_USERNAME=... DB_PASSWORD=... ./mvnw test -Dtest=SessionGenerationBenchmark
+@SpringBootTest
+@Transactional
+class SessionGenerationBenchmark {
+
+    private static final int COURSES = 20;
+
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CenterRepository centerRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ClassSlotRepository classSlotRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void generateTwelveMonthSchedules() {
+        LocalDate start = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        LocalDate end = start.plusMonths(12).minusDays(1);
+
+        User teacher = new User();
+        teacher.setFirstName("Bench");
+        teacher.setLastName("Teacher");
+        teacher.setEmail("bench-" + System.nanoTime() + "@ecm.test");
+        teacher.setPersonalEmail(teacher.getEmail());
+        teacher.setPassword("bench");
+        teacher.setEnabled(true);
+        teacher.setRole(roleRepository.findByName("TEACHER").orElseThrow());
+        userRepository.save(teacher);
+
+        Center center = new Center();
+        center.setName("Benchmark center");
+        center.setManager(teacher);
+        centerRepository.save(center);
+
+        List<Course> courses = new ArrayList<>();
+        List<List<ClassSlot>> slotsByCourse = new ArrayList<>();
+        long expected = 0;
+        for (int i = 0; i < COURSES; i++) {
+            Course course = new Course();
+            course.setName("Benchmark course " + i);
+            course.setCenter(center);
+            course.setTeacher(teacher);
+            course.setStartDate(start);
+            course.setEndDate(end);
+            courses.add(courseRepository.save(course));
+
+            List<ClassSlot> slots = List.of(
+                    slot(center, course, start, end, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY),
+                            LocalTime.of(8, 0), LocalTime.of(9, 30)),
+                    slot(center, course, start, end, EnumSet.of(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY),
+                            LocalTime.of(18, 0), LocalTime.of(19, 30)));
+            slotsByCourse.add(slots);
+
+            for (ClassSlot slot : slots) {
+                for (LocalDate ignored : SlotRecurrence.of(slot).occurrences(start, end)) {
+                    expected++;
+                }
+            }
+        }
+        entityManager.flush();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < COURSES; i++) {
+            courseService.generateClassSessions(courses.get(i), slotsByCourse.get(i));
+        }
+        // saveAll only queues the INSERTs; the flush is what reaches the database
+        entityManager.flush();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        System.out.printf("Generated %d sessions (%d courses x 12 months) in %d ms: %d rows/sec%n",
+                expected, COURSES, elapsedMillis, expected * 1000 / elapsedMillis);
+
+        Long stored = entityManager.createQuery(
+                "SELECT COUNT(s) FROM ClassSession s WHERE s.course.center.id = :centerId", Long.class)
+                .setParameter("centerId", center.getId())
+                .getSingleResult();
+        assertThat(stored).isEqualTo(expected);
+    }
+
+    private ClassSlot slot(Center center, Course course, LocalDate start, LocalDate end, EnumSet<DayOfWeek> days,
+            LocalTime startTime, LocalTime endTime) {
+        ClassSlot slot = new ClassSlot();
+        slot.setCenter(center);
+        slot.setCourse(course);
+        slot.setDaysOfWeek(days);
+        slot.setStartDate(start);
+        slot.setEndDate(end);
+        slot.setStartTime(startTime);
+        slot.setEndTime(endTime);
+        return classSlotRepository.save(slot);
+    }
+}
@@ -0,0 +1,149 @@
+package com.extracenter.backend.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.extracenter.backend.entity.ClassSlot;
+
+class SlotRecurrenceTest {
+
+    // 2025-01-06 is a Monday, 2025-01-31 a Friday
+    private static final LocalDate START = LocalDate.of(2025, 1, 6);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Test
+    void occurrencesIncludeBothEndsOfTheSlotRange() {
+        ClassSlot slot = slot(START, END, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+
+        assertThat(list(SlotRecurrence.of(slot).occurrences())).containsExactly(
+                date(6), date(10), date(13), date(17), date(20), date(24), date(27), date(31));
+    }
+
+    @Test
+    void occurrencesAreClampedToTheRequestedWindow() {
+        SlotRecurrence recurrence = SlotRecurrence.of(slot(START, END, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)));
+
+        // Window wider than the slot: the slot's own range wins
+        assertThat(list(recurrence.occurrences(START.minusMonths(1), END.plusMonths(1))))
+                .isEqualTo(list(recurrence.occurrences()));
+        // Window edges on non-matching days
+        assertThat(list(recurrence.occurrences(date(7), date(12)))).containsExactly(date(10));
+        // Single-day windows
+        assertThat(list(recurrence.occurrences(date(13), date(13)))).containsExactly(date(13));
+        assertThat(list(recurrence.occurrences(date(14), date(14)))).isEmpty();
+        // Inverted / disjoint windows
+        assertThat(list(recurrence.occurrences(date(20), date(13)))).isEmpty();
+        assertThat(list(recurrence.occurrences(END.plusDays(1), END.plusDays(30)))).isEmpty();
+    }
+
+    @Test
+    void firstOccurrenceSkipsToTheFirstMatchingWeekday() {
+        // Starts on a Tuesday, runs on Mondays only
+        ClassSlot slot = slot(date(7), END, EnumSet.of(DayOfWeek.MONDAY));
+
+        assertThat(list(SlotRecurrence.of(slot).occurrences())).containsExactly(date(13), date(20), date(27));
+    }
+
+    @Test
+    void excludedDatesAreSkippedIncludingRangeEnds() {
+        ClassSlot slot = slot(START, END, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+        // First, last, a middle occurrence, a non-occurrence and a date outside the range
+        slot.setExcludedDates(Set.of(date(6), date(31), date(17), date(15), LocalDate.of(2025, 3, 3)));
+
+        SlotRecurrence recurrence = SlotRecurrence.of(slot);
+
+        assertThat(list(recurrence.occurrences())).containsExactly(
+                date(10), date(13), date(20), date(24), date(27));
+        assertThat(list(recurrence.occurrences(date(6), date(6)))).isEmpty();
+        assertThat(recurrence.isExcluded(date(17))).isTrue();
+        assertThat(recurrence.occursOn(date(17))).isFalse();
+        assertThat(recurrence.occursOn(date(20))).isTrue();
+    }
+
+    @Test
+    void consecutiveExcludedDatesAreAllSkipped() {
+        ClassSlot slot = slot(START, END, EnumSet.allOf(DayOfWeek.class));
+        slot.setExcludedDates(Set.of(date(6), date(7), date(8), date(9)));
+
+        assertThat(list(SlotRecurrence.of(slot).occurrences(START, date(11))))
+                .containsExactly(date(10), date(11));
+    }
+
+    @Test
+    void legacyDayOfWeekIsUsedWhenDaysOfWeekIsEmpty() {
+        ClassSlot slot = slot(START, END, EnumSet.noneOf(DayOfWeek.class));
+        slot.setDayOfWeek(DayOfWeek.WEDNESDAY);
+
+        SlotRecurrence recurrence = SlotRecurrence.of(slot);
+
+        assertThat(recurrence.getDayMask()).isEqualTo(SlotRecurrence.bit(DayOfWeek.WEDNESDAY));
+        assertThat(list(recurrence.occurrences())).containsExactly(date(8), date(15), date(22), date(29));
+    }
+
+    @Test
+    void daysOfWeekWinsOverTheLegacyColumn() {
+        ClassSlot slot = slot(START, END, EnumSet.of(DayOfWeek.FRIDAY));
+        slot.setDayOfWeek(DayOfWeek.WEDNESDAY);
+
+        assertThat(SlotRecurrence.effectiveDayMask(slot)).isEqualTo(SlotRecurrence.bit(DayOfWeek.FRIDAY));
+    }
+
+    @Test
+    void slotWithoutDaysOrDatesHasNoOccurrences() {
+        assertThat(list(SlotRecurrence.of(slot(START, END, EnumSet.noneOf(DayOfWeek.class))).occurrences())).isEmpty();
+        assertThat(list(SlotRecurrence.of(slot(null, END, EnumSet.of(DayOfWeek.MONDAY))).occurrences())).isEmpty();
+        assertThat(list(SlotRecurrence.of(slot(START, null, EnumSet.of(DayOfWeek.MONDAY))).occurrences())).isEmpty();
+    }
+
+    @Test
+    void everyDayMaskMatchesADayByDayWalk() {
+        LocalDate from = LocalDate.of(2024, 12, 29);
+        LocalDate to = LocalDate.of(2025, 3, 2);
+
+        for (int mask = 1; mask < 128; mask++) {
+            EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if ((mask & SlotRecurrence.bit(day)) != 0) {
+                    days.add(day);
+                }
+            }
+
+            List<LocalDate> expected = new ArrayList<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (days.contains(date.getDayOfWeek())) {
+                    expected.add(date);
+                }
+            }
+
+            assertThat(list(SlotRecurrence.of(slot(from, to, days)).occurrences()))
+                    .as("mask %d", mask)
+                    .isEqualTo(expected);
+        }
+    }
+
+    private static ClassSlot slot(LocalDate start, LocalDate end, Set<DayOfWeek> days) {
+        ClassSlot slot = new ClassSlot();
+        slot.setStartDate(start);
+        slot.setEndDate(end);
+        slot.setDaysOfWeek(days);
+        return slot;
+    }
+
+    private static LocalDate date(int dayOfJanuary) {
+        return LocalDate.of(2025, 1, dayOfJanuary);
+    }
+
+    private static List<LocalDate> list(Iterable<LocalDate> dates) {
+        List<LocalDate> result = new ArrayList<>();
+        dates.forEach(result::add);
+        return result;
+    }
+}
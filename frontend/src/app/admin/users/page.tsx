@@ -1,9 +1,10 @@
 "use client";
-import React, { useEffect, useState } from "react";
+import React, { useEffect, useRef, useState } from "react";
 import { useRouter } from "next/navigation";
 import ConfirmModal from "@/components/ConfirmModal";
 import {
-    getAllUsers,
+    getAdminUsers,
+    getAdminUserCounts,
     toggleUserLock,
     getUserStats,
 } from "@/services/adminService";
@@ -25,6 +26,14 @@ interface UserStats {
     totalStudents: number;
 }
 
+interface UserPage {
+    items: User[];
+    nextCursor: number | null;
+}
+
+const PAGE_SIZE = 100;
+const SEARCH_DEBOUNCE_MS = 300;
+
 interface StoredUser {
     id: number;
     role?: string | { name?: string };
@@ -33,10 +42,16 @@ interface StoredUser {
 const UserManagement = () => {
     const router = useRouter();
     const [users, setUsers] = useState<User[]>([]);
+    const [nextCursor, setNextCursor] = useState<number | null>(null);
+    const [roleCounts, setRoleCounts] = useState<Record<string, number>>({});
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [isAuthorized, setIsAuthorized] = useState(false);
     const [roleFilter, setRoleFilter] = useState("ALL");
     const [searchTerm, setSearchTerm] = useState("");
+    const [debouncedSearch, setDebouncedSearch] = useState("");
+    // Only the latest request may fill the list (an older, slower search must not overwrite it)
+    const requestSeq = useRef(0);
     const [stats, setStats] = useState<UserStats | null>(null);
     const [selectedUser, setSelectedUser] = useState<User | null>(null);
     const [lockConfirmUser, setLockConfirmUser] = useState<User | null>(null);
@@ -74,7 +89,9 @@ const UserManagement = () => {
 
             setCurrentAdminId(storedUser.id || 0);
             setIsAuthorized(true);
-            loadUsers();
+            getAdminUserCounts()
+                .then(setRoleCounts)
+                .catch((error) => console.error("Failed to load user counts", error));
         } catch (error) {
             console.error("Invalid user session", error);
             localStorage.removeItem("user");
@@ -83,18 +100,53 @@ const UserManagement = () => {
         }
     }, [router]);
 
-    const loadUsers = async () => {
+    useEffect(() => {
+        const timer = setTimeout(() => setDebouncedSearch(searchTerm.trim()), SEARCH_DEBOUNCE_MS);
+        return () => clearTimeout(timer);
+    }, [searchTerm]);
+
+    // First page again whenever the role filter or the search changes; both are filtered on the server
+    useEffect(() => {
+        if (isAuthorized) {
+            loadUsers(null);
+        }
+    }, [isAuthorized, roleFilter, debouncedSearch]);
+
+    // afterId = null -> replace the list with the first page, otherwise append the next page
+    const loadUsers = async (afterId: number | null) => {
+        if (afterId === null) {
+            setLoading(true);
+        } else {
+            setLoadingMore(true);
+        }
+
+        const seq = ++requestSeq.current;
         try {
-            const data = await getAllUsers();
-            setUsers(data);
+            const page: UserPage = await getAdminUsers({
+                role: roleFilter === "ALL" ? undefined : roleFilter,
+                q: debouncedSearch,
+                afterId,
+                size: PAGE_SIZE,
+            });
+            if (seq !== requestSeq.current) {
+                return;
+            }
+            setUsers((prev) => (afterId === null ? page.items : [...prev, ...page.items]));
+            setNextCursor(page.nextCursor);
         } catch (error) {
+            if (seq !== requestSeq.current) {
+                return;
+            }
             console.error("Failed to load users", error);
             setErrorModal({
                 title: "Unable to Load Users",
                 message: "The admin user list could not be loaded. Please try again.",
             });
         } finally {
-            setLoading(false);
+            if (seq === requestSeq.current) {
+                setLoading(false);
+                setLoadingMore(false);
+            }
         }
     };
 
@@ -142,18 +194,7 @@ const UserManagement = () => {
         }
     };
 
-    const normalizedSearchTerm = searchTerm.trim().toLowerCase();
-    const availableRoles = Array.from(new Set(users.map((user) => user.role.name))).sort();
-    const filteredUsers = users.filter((user) => {
-        const matchesRole = roleFilter === "ALL" || user.role.name === roleFilter;
-        const fullName = `${user.firstName} ${user.lastName}`.toLowerCase();
-        const matchesSearch =
-            normalizedSearchTerm.length === 0 ||
-            fullName.includes(normalizedSearchTerm) ||
-            user.email.toLowerCase().includes(normalizedSearchTerm);
-
-        return matchesRole && matchesSearch;
-    });
+    const availableRoles = Object.keys(roleCounts).sort();
 
     if (!isAuthorized) {
         return (
@@ -198,7 +239,7 @@ const UserManagement = () => {
                             <option value="ALL">All roles</option>
                             {availableRoles.map((role) => (
                                 <option key={role} value={role}>
-                                    {role}
+                                    {role} ({roleCounts[role]})
                                 </option>
                             ))}
                         </select>
@@ -229,7 +270,7 @@ const UserManagement = () => {
                         </tr>
                     </thead>
                     <tbody>
-                        {filteredUsers.map((user) => (
+                        {users.map((user) => (
                             <tr key={user.id} className="hover:bg-gray-100">
                                 <td className="px-5 py-5 border-b text-sm font-medium">
                                     {user.firstName} {user.lastName}
@@ -303,7 +344,7 @@ const UserManagement = () => {
                                 </td>
                             </tr>
                         ))}
-                        {filteredUsers.length === 0 && !loading && (
+                        {users.length === 0 && !loading && (
                             <tr>
                                 <td colSpan={5} className="px-5 py-8 text-center text-sm text-slate-500">
                                     No users match the current filters.
@@ -314,6 +355,18 @@ const UserManagement = () => {
                 </table>
             </div>
 
+            {nextCursor !== null && (
+                <div className="flex justify-center">
+                    <button
+                        onClick={() => loadUsers(nextCursor)}
+                        disabled={loadingMore}
+                        className="rounded-lg bg-[var(--color-main)] px-4 py-2 text-sm font-semibold text-white hover:bg-blue-600 disabled:opacity-60"
+                    >
+                        {loadingMore ? "Loading..." : "Load more users"}
+                    </button>
+                </div>
+            )}
+
             {/* STATS MODAL */}
             {selectedUser && (
                 <div className="fixed inset-0 bg-black/50 flex items-center justify-center z-50 text-[var(--color-text)]">
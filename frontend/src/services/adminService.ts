@@ -1,8 +1,24 @@
 import api from '../utils/axiosConfig'; // Your axios instance
 
-// 1. Get All Users
-export const getAllUsers = async () => {
-    const response = await api.get('/users/admin/all');
+export interface AdminUserQuery {
+    role?: string;
+    // Name / email / phone fragment, matched on the server (accent-insensitive)
+    q?: string;
+    afterId?: number | null;
+    size?: number;
+}
+
+// 1. Get Users, one keyset page at a time: pass nextCursor back as afterId for the next page
+export const getAdminUsers = async ({ role, q, afterId, size }: AdminUserQuery = {}) => {
+    const response = await api.get('/users/admin/users', {
+        params: { role, q: q || undefined, afterId: afterId ?? undefined, size },
+    });
+    return response.data; // { items, nextCursor }
+};
+
+// Number of users per role name, e.g. { ADMIN: 1, TEACHER: 12, STUDENT: 340 }
+export const getAdminUserCounts = async () => {
+    const response = await api.get('/users/admin/users/counts');
     return response.data;
 };
 